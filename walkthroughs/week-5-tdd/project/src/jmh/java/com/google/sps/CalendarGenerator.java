@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds random calendars and meeting requests for the benchmarks. The same seed always produces
+ * the same calendar, so results can be compared between runs.
+ */
+public final class CalendarGenerator {
+  /** How long the generated events are. */
+  public enum Durations {
+    /** Events between 15 minutes and 1 hour long. */
+    SHORT(15, 60),
+    /** Events between 2 and 8 hours long. */
+    LONG(2 * 60, 8 * 60);
+
+    private final int minMinutes;
+    private final int maxMinutes;
+
+    Durations(int minMinutes, int maxMinutes) {
+      this.minMinutes = minMinutes;
+      this.maxMinutes = maxMinutes;
+    }
+  }
+
+  private static final int MINS_IN_DAY = TimeRange.WHOLE_DAY.duration();
+  private static final int MAX_ATTENDEES_PER_EVENT = 8;
+
+  private final Random random;
+  private final List<String> people = new ArrayList<>();
+
+  /** Creates a generator whose events are attended by {@code numPeople} different people. */
+  public CalendarGenerator(long seed, int numPeople) {
+    this.random = new Random(seed);
+    for (int i = 0; i < numPeople; i++) {
+      people.add("Person " + i);
+    }
+  }
+
+  /** Returns the names of the people that can attend the generated events. */
+  public List<String> getPeople() {
+    return people;
+  }
+
+  /** Returns {@code numEvents} events spread over a single day. */
+  public List<Event> events(int numEvents, Durations durations) {
+    List<Event> events = new ArrayList<>(numEvents);
+    for (int i = 0; i < numEvents; i++) {
+      int duration =
+          durations.minMinutes + random.nextInt(durations.maxMinutes - durations.minMinutes + 1);
+      int start = random.nextInt(MINS_IN_DAY - duration + 1);
+      events.add(
+          new Event(
+              "Event " + i,
+              TimeRange.fromStartDuration(start, duration),
+              attendees(1 + random.nextInt(MAX_ATTENDEES_PER_EVENT))));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request for {@code numMandatory} mandatory and {@code numOptional} optional people,
+   * picked at random from the people attending the events.
+   */
+  public MeetingRequest request(int numMandatory, int numOptional, int duration) {
+    List<String> shuffled = new ArrayList<>(people);
+    Collections.shuffle(shuffled, random);
+
+    int mandatoryEnd = Math.min(numMandatory, shuffled.size());
+    int optionalEnd = Math.min(mandatoryEnd + numOptional, shuffled.size());
+
+    MeetingRequest request = new MeetingRequest(shuffled.subList(0, mandatoryEnd), duration);
+    for (String attendee : shuffled.subList(mandatoryEnd, optionalEnd)) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  private Collection<String> attendees(int count) {
+    List<String> attendees = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      attendees.add(people.get(random.nextInt(people.size())));
+    }
+    return attendees;
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@code Event.equals} and {@code Event.hashCode}. Every event is compared with an equal
+ * copy of itself, which is the slowest case since every field has to be checked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark {
+  private static final int NUM_EVENTS = 1024;
+
+  private List<Event> events;
+  private List<Event> copies;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(/* seed= */ 42, /* numPeople= */ 100);
+    events = generator.events(NUM_EVENTS, CalendarGenerator.Durations.SHORT);
+    copies = new ArrayList<>(NUM_EVENTS);
+    for (Event event : events) {
+      copies.add(new Event(event.getTitle(), event.getWhen(), event.getAttendees()));
+    }
+  }
+
+  @Benchmark
+  public void equalsCopy(Blackhole blackhole) {
+    for (int i = 0; i < NUM_EVENTS; i++) {
+      blackhole.consume(events.get(i).equals(copies.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void hashCodes(Blackhole blackhole) {
+    for (Event event : events) {
+      blackhole.consume(event.hashCode());
+    }
+  }
+}
@@ -0,0 +1,78 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery.query} over generated calendars of different sizes, request
+ * sizes and event lengths, for each engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  // Enough people that the largest requests can still be filled with different attendees.
+  private static final int NUM_PEOPLE = 5000;
+  private static final int MEETING_DURATION = 30;
+
+  @Param({"10", "1000", "100000"})
+  public int numEvents;
+
+  @Param({"1", "100", "1000"})
+  public int numMandatory;
+
+  @Param({"0", "100", "1000"})
+  public int numOptional;
+
+  @Param({"SHORT", "LONG"})
+  public CalendarGenerator.Durations durations;
+
+  @Param({"DAY_ARRAY", "SWEEP_LINE", "PARALLEL_SWEEP_LINE"})
+  public FindMeetingQuery.Engine engine;
+
+  private List<Event> events;
+  private MeetingRequest request;
+  private FindMeetingQuery query;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(/* seed= */ 42, NUM_PEOPLE);
+    events = generator.events(numEvents, durations);
+    request = generator.request(numMandatory, numOptional, MEETING_DURATION);
+    query = new FindMeetingQuery(engine);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> query() {
+    return query.query(events, request);
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures requests without optional attendees, which are answered from bitmaps of busy minutes:
+ * built from the events by the {@code DAY_ARRAY} engine, or kept up to date by a {@code
+ * CalendarIndex}. The sweep over the events is measured for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MandatoryOnlyBenchmark {
+  private static final int NUM_PEOPLE = 5000;
+  private static final int MEETING_DURATION = 30;
+
+  @Param({"1000", "100000"})
+  public int numEvents;
+
+  @Param({"1", "100"})
+  public int numMandatory;
+
+  private List<Event> events;
+  private Collection<Event> requestEvents;
+  private CalendarIndex calendarIndex;
+  private MeetingRequest request;
+  private FindMeetingQuery dayArray;
+  private FindMeetingQuery sweepLine;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(/* seed= */ 42, NUM_PEOPLE);
+    events = generator.events(numEvents, CalendarGenerator.Durations.SHORT);
+    request = generator.request(numMandatory, /* numOptional= */ 0, MEETING_DURATION);
+    calendarIndex = new CalendarIndex(events);
+    requestEvents = calendarIndex.eventsFor(request);
+    dayArray = new FindMeetingQuery(FindMeetingQuery.Engine.DAY_ARRAY);
+    sweepLine = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> dayArray() {
+    return dayArray.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> sweepLine() {
+    return sweepLine.query(events, request);
+  }
+
+  /** The sweep over only the events of the request's attendees. */
+  @Benchmark
+  public Collection<TimeRange> indexedSweepLine() {
+    return sweepLine.query(requestEvents, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> calendarBitmaps() {
+    return dayArray.query(calendarIndex, request);
+  }
+}
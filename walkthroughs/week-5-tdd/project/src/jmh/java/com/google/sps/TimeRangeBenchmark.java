@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Measures {@code TimeRange.overlaps} and {@code TimeRange.contains} over random ranges. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeRangeBenchmark {
+  private static final int NUM_RANGES = 1024;
+
+  private TimeRange[] ranges;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(/* seed= */ 42, /* numPeople= */ 1);
+    ranges = new TimeRange[NUM_RANGES];
+    int i = 0;
+    for (Event event : generator.events(NUM_RANGES, CalendarGenerator.Durations.SHORT)) {
+      ranges[i++] = event.getWhen();
+    }
+  }
+
+  @Benchmark
+  public void overlaps(Blackhole blackhole) {
+    for (int i = 1; i < ranges.length; i++) {
+      blackhole.consume(ranges[i - 1].overlaps(ranges[i]));
+    }
+  }
+
+  @Benchmark
+  public void containsRange(Blackhole blackhole) {
+    for (int i = 1; i < ranges.length; i++) {
+      blackhole.consume(ranges[i - 1].contains(ranges[i]));
+    }
+  }
+
+  @Benchmark
+  public void containsPoint(Blackhole blackhole) {
+    for (int i = 1; i < ranges.length; i++) {
+      blackhole.consume(ranges[i - 1].contains(ranges[i].start()));
+    }
+  }
+}
@@ -0,0 +1,134 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps attendee names to small, dense ids so that a group of attendees can be stored as a bit
+ * mask, with bit {@code id} set for each attendee in the group. Ids are never reused or changed, so
+ * a mask stays valid while more names are added. Safe to share between threads.
+ */
+public final class AttendeeDictionary {
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private final List<String> names = new ArrayList<>();
+
+  /** Returns the id for {@code name}, giving it the next free id if it has not been seen before. */
+  public int intern(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+
+    synchronized (names) {
+      id = ids.get(name);
+      if (id == null) {
+        id = names.size();
+        names.add(name);
+        ids.put(name, id);
+      }
+      return id;
+    }
+  }
+
+  /** Returns the id for {@code name}, or -1 if it has not been seen before. */
+  public int idOf(String name) {
+    Integer id = ids.get(name);
+    return (id == null) ? -1 : id;
+  }
+
+  /** Returns whether every name in {@code names} has been given an id. */
+  public boolean knowsAll(Collection<String> names) {
+    for (String name : names) {
+      if (!ids.containsKey(name)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the name that was given {@code id}. */
+  public String nameOf(int id) {
+    synchronized (names) {
+      return names.get(id);
+    }
+  }
+
+  /** Returns how many names have been given an id. */
+  public int size() {
+    return ids.size();
+  }
+
+  /**
+   * Returns a mask with the bit of every attendee in {@code attendees} set, giving names that have
+   * not been seen before the next free ids.
+   */
+  public long[] maskOf(Collection<String> attendees) {
+    return maskOf(attendees, true);
+  }
+
+  /**
+   * Same as {@code maskOf}, but names that have not been seen before are left out instead of given
+   * ids. Used for meeting requests, whose names come from clients and would otherwise grow the
+   * dictionary without bound. A name no event has used cannot conflict with any event anyway.
+   */
+  public long[] knownMaskOf(Collection<String> attendees) {
+    return maskOf(attendees, false);
+  }
+
+  private long[] maskOf(Collection<String> attendees, boolean internNew) {
+    int[] attendeeIds = new int[attendees.size()];
+    int numIds = 0;
+    int maxId = -1;
+    for (String attendee : attendees) {
+      int id = internNew ? intern(attendee) : idOf(attendee);
+      if (id != -1) {
+        attendeeIds[numIds++] = id;
+        maxId = Math.max(maxId, id);
+      }
+    }
+
+    long[] mask = new long[(maxId >> 6) + 1];
+    for (int i = 0; i < numIds; i++) {
+      mask[attendeeIds[i] >> 6] |= 1L << attendeeIds[i];
+    }
+    return mask;
+  }
+
+  /** Returns whether the two masks have any attendee in common. */
+  public static boolean intersects(long[] a, long[] b) {
+    int words = Math.min(a.length, b.length);
+    for (int i = 0; i < words; i++) {
+      if ((a[i] & b[i]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns how many attendees the two masks have in common. */
+  public static int countShared(long[] a, long[] b) {
+    int words = Math.min(a.length, b.length);
+    int count = 0;
+    for (int i = 0; i < words; i++) {
+      count += Long.bitCount(a[i] & b[i]);
+    }
+    return count;
+  }
+}
@@ -0,0 +1,166 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts how many of a group of people are free in each bucket of a window, such as each 15
+ * minutes of a day or a week. A person is free in a bucket if none of their events overlap it.
+ * The counts come from a difference array: each person's busy buckets add one where they start and
+ * take one away where they end, and a single prefix sum gives the count of busy people per bucket.
+ */
+public final class AvailabilityHeatmap {
+  private AvailabilityHeatmap() {}
+
+  /**
+   * Returns how many of {@code people} are free in each {@code bucketMinutes} bucket of {@code
+   * window}, using the merged busy times kept by {@code calendar}, such as a {@code
+   * CalendarIndex}. The last bucket is cut short if the window does not divide evenly. Takes time
+   * linear in the busy times and the buckets.
+   */
+  public static int[] countFree(
+      BusyTimeSource calendar, Collection<String> people, TimeRange window, int bucketMinutes) {
+    int numBuckets = countBuckets(window, bucketMinutes);
+    int[] busyChanges = new int[numBuckets + 1];
+
+    Set<String> distinctPeople = new HashSet<>(people);
+    for (String person : distinctPeople) {
+      List<TimeRange> busyTimes = calendar.getBusyTimes(person, window);
+      long[] ranges = new long[busyTimes.size()];
+      for (int i = 0; i < ranges.length; i++) {
+        ranges[i] = toBuckets(busyTimes.get(i), window, bucketMinutes);
+      }
+      addBusyBuckets(ranges, ranges.length, busyChanges);
+    }
+
+    return toFreeCounts(busyChanges, distinctPeople.size(), numBuckets);
+  }
+
+  /**
+   * Same as {@code countFree(calendar, people, window, bucketMinutes)}, but reads the events
+   * directly. Each person's events are sorted before being merged into busy buckets.
+   */
+  public static int[] countFree(
+      Collection<Event> events, Collection<String> people, TimeRange window, int bucketMinutes) {
+    int numBuckets = countBuckets(window, bucketMinutes);
+    int[] busyChanges = new int[numBuckets + 1];
+
+    // Collects each person's busy buckets as packed ranges.
+    Map<String, Integer> indexes = new HashMap<>();
+    for (String person : people) {
+      if (!indexes.containsKey(person)) {
+        indexes.put(person, indexes.size());
+      }
+    }
+    long[][] ranges = new long[indexes.size()][];
+    int[] numRanges = new int[indexes.size()];
+
+    for (Event event : events) {
+      // An event with no length inside the window busies nobody, as in the index and in
+      // FindMeetingQuery, even though it overlaps the window.
+      TimeRange when = event.getWhen();
+      if (Math.max(when.start(), window.start()) >= Math.min(when.end(), window.end())) {
+        continue;
+      }
+
+      long range = toBuckets(when, window, bucketMinutes);
+      for (String attendee : event.getAttendees()) {
+        Integer index = indexes.get(attendee);
+        if (index == null) {
+          continue;
+        }
+
+        if (ranges[index] == null) {
+          ranges[index] = new long[4];
+        } else if (numRanges[index] == ranges[index].length) {
+          ranges[index] = Arrays.copyOf(ranges[index], 2 * numRanges[index]);
+        }
+        ranges[index][numRanges[index]++] = range;
+      }
+    }
+
+    for (int i = 0; i < ranges.length; i++) {
+      if (ranges[i] != null) {
+        Arrays.sort(ranges[i], 0, numRanges[i]);
+        addBusyBuckets(ranges[i], numRanges[i], busyChanges);
+      }
+    }
+
+    return toFreeCounts(busyChanges, indexes.size(), numBuckets);
+  }
+
+  private static int countBuckets(TimeRange window, int bucketMinutes) {
+    if (window == null) {
+      throw new IllegalArgumentException("window cannot be null");
+    }
+
+    if (bucketMinutes < 1) {
+      throw new IllegalArgumentException("bucketMinutes must be at least one");
+    }
+
+    return (window.duration() + bucketMinutes - 1) / bucketMinutes;
+  }
+
+  /**
+   * Returns the buckets {@code busyTime} overlaps, packed with the first bucket in the high bits
+   * and the bucket after the last in the low bits, so that sorting them sorts by first bucket.
+   */
+  private static long toBuckets(TimeRange busyTime, TimeRange window, int bucketMinutes) {
+    int start = Math.max(busyTime.start(), window.start()) - window.start();
+    int end = Math.min(busyTime.end(), window.end()) - window.start();
+    int firstBucket = start / bucketMinutes;
+    int endBucket = (end + bucketMinutes - 1) / bucketMinutes;
+    return ((long) firstBucket << 32) | endBucket;
+  }
+
+  /**
+   * Adds one person's sorted bucket ranges to the difference array, merging ranges that share a
+   * bucket so that the person is only counted once in it.
+   */
+  private static void addBusyBuckets(long[] ranges, int numRanges, int[] busyChanges) {
+    int i = 0;
+    while (i < numRanges) {
+      int first = (int) (ranges[i] >>> 32);
+      int end = (int) ranges[i];
+      i++;
+      while (i < numRanges && (int) (ranges[i] >>> 32) < end) {
+        end = Math.max(end, (int) ranges[i]);
+        i++;
+      }
+
+      if (first < end) {
+        busyChanges[first]++;
+        busyChanges[end]--;
+      }
+    }
+  }
+
+  private static int[] toFreeCounts(int[] busyChanges, int numPeople, int numBuckets) {
+    int[] freeCounts = new int[numBuckets];
+    int busy = 0;
+    for (int i = 0; i < numBuckets; i++) {
+      busy += busyChanges[i];
+      freeCounts[i] = numPeople - busy;
+    }
+    return freeCounts;
+  }
+}
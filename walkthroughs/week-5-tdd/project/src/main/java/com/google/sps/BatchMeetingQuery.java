@@ -0,0 +1,117 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Answers many meeting requests against the same calendar at once. The calendar is indexed by
+ * attendee a single time, and the requests are answered in parallel on a fork-join pool.
+ */
+public final class BatchMeetingQuery {
+  private final BusyTimeSource calendar;
+  private final FindMeetingQuery findMeetingQuery;
+  private final ForkJoinPool pool;
+
+  /** Creates a batch query over {@code events} that runs on the common fork-join pool. */
+  public BatchMeetingQuery(Collection<Event> events) {
+    this(new CalendarIndex(events), new FindMeetingQuery(), ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a batch query that answers each request with {@code findMeetingQuery} over the busy
+   * times {@code calendar} keeps for its attendees, running on {@code pool}.
+   */
+  public BatchMeetingQuery(
+      BusyTimeSource calendar, FindMeetingQuery findMeetingQuery, ForkJoinPool pool) {
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    if (findMeetingQuery == null) {
+      throw new IllegalArgumentException("findMeetingQuery cannot be null");
+    }
+
+    if (pool == null) {
+      throw new IllegalArgumentException("pool cannot be null");
+    }
+
+    this.calendar = calendar;
+    this.findMeetingQuery = findMeetingQuery;
+    this.pool = pool;
+  }
+
+  /**
+   * Returns the answer to each of {@code requests}, in the same order as the requests. Each answer
+   * is the same as {@code FindMeetingQuery.query(calendar, request)} would give for the
+   * request on its own.
+   */
+  public List<Collection<TimeRange>> query(List<MeetingRequest> requests) {
+    if (requests == null) {
+      throw new IllegalArgumentException("requests cannot be null");
+    }
+
+    MeetingRequest[] requestArray = requests.toArray(new MeetingRequest[0]);
+    for (MeetingRequest request : requestArray) {
+      if (request == null) {
+        throw new IllegalArgumentException("requests cannot contain null");
+      }
+    }
+    // Filled in by index from the pool's threads. Each task sets its own indexes, and setting an
+    // index does not change the list's structure, so no lock is needed.
+    List<Collection<TimeRange>> answers =
+        new ArrayList<>(Collections.<Collection<TimeRange>>nCopies(requestArray.length, null));
+
+    pool.invoke(new QueryTask(requestArray, answers, 0, requestArray.length));
+
+    return answers;
+  }
+
+  /** Answers the requests from {@code from} up to {@code to}, splitting them until one is left. */
+  private final class QueryTask extends RecursiveAction {
+    private final MeetingRequest[] requests;
+    private final List<Collection<TimeRange>> answers;
+    private final int from;
+    private final int to;
+
+    private QueryTask(
+        MeetingRequest[] requests, List<Collection<TimeRange>> answers, int from, int to) {
+      this.requests = requests;
+      this.answers = answers;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= 1) {
+        for (int i = from; i < to; i++) {
+          answers.set(i, findMeetingQuery.query(calendar, requests[i]));
+        }
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(
+          new QueryTask(requests, answers, from, middle),
+          new QueryTask(requests, answers, middle, to));
+    }
+  }
+}
@@ -0,0 +1,29 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/**
+ * Something that knows when each attendee is busy, such as a {@code CalendarIndex} built in memory
+ * or a {@code CalendarSnapshot} mapped from a file.
+ */
+public interface BusyTimeSource {
+  /**
+   * Returns the times {@code attendee} is busy during {@code window}, in order, with overlapping
+   * and back-to-back times merged.
+   */
+  List<TimeRange> getBusyTimes(String attendee, TimeRange window);
+}
@@ -0,0 +1,124 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The times when one attendee is busy. Events can be added and removed one at a time, and the
+ * busy times are always kept merged, so overlapping and back-to-back events read as one busy time.
+ * The busy minutes of the first day are also kept as a bitmap, so that the busy times of many
+ * attendees can be combined a word at a time. Not safe to share between threads without a lock.
+ */
+public final class BusyTimeline {
+  // Maps each time where the number of events changes to the number of events from that time
+  // until the next key. Neighbouring keys never have the same count, so adding or removing an
+  // event only touches the keys inside of it.
+  private final TreeMap<Integer, Integer> counts = new TreeMap<>();
+  // The busy minutes from 0 up to MinuteBitmap.MINUTES, kept in step with counts.
+  private final long[] dayBusyMinutes = new long[MinuteBitmap.WORDS];
+
+  /** Marks {@code range} as busy. */
+  public void add(TimeRange range) {
+    change(range.start(), range.end(), 1);
+  }
+
+  /** Removes a range that was added before. Other events covering the same time stay busy. */
+  public void remove(TimeRange range) {
+    change(range.start(), range.end(), -1);
+  }
+
+  /** Returns whether the attendee is free at every time. */
+  public boolean isEmpty() {
+    return counts.isEmpty();
+  }
+
+  /** Sets the bits of {@code busyMinutes} for each minute of the first day that is busy. */
+  public void addBusyMinutes(long[] busyMinutes) {
+    for (int i = 0; i < MinuteBitmap.WORDS; i++) {
+      busyMinutes[i] |= dayBusyMinutes[i];
+    }
+  }
+
+  /** Returns the merged busy times that overlap {@code window}, cut down to fit inside of it. */
+  public List<TimeRange> getBusyTimes(TimeRange window) {
+    int from = window.start();
+    int to = window.end();
+    List<TimeRange> busyTimes = new ArrayList<>();
+
+    Map.Entry<Integer, Integer> first = counts.floorEntry(from);
+    boolean busy = first != null && first.getValue() > 0;
+    int busyStart = from;
+
+    for (Map.Entry<Integer, Integer> entry : counts.subMap(from, false, to, false).entrySet()) {
+      if (!busy && entry.getValue() > 0) {
+        busy = true;
+        busyStart = entry.getKey();
+      } else if (busy && entry.getValue() == 0) {
+        busy = false;
+        busyTimes.add(TimeRange.fromStartEnd(busyStart, entry.getKey(), false));
+      }
+    }
+
+    if (busy) {
+      busyTimes.add(TimeRange.fromStartEnd(busyStart, to, false));
+    }
+    return busyTimes;
+  }
+
+  private void change(int start, int end, int amount) {
+    if (start >= end) {
+      return;
+    }
+
+    split(start);
+    split(end);
+    for (Map.Entry<Integer, Integer> entry : counts.subMap(start, end).entrySet()) {
+      entry.setValue(entry.getValue() + amount);
+    }
+    join(start);
+    join(end);
+
+    // Redraws the changed minutes of the bitmap from the merged busy times.
+    int from = Math.max(start, 0);
+    int to = Math.min(end, MinuteBitmap.MINUTES);
+    if (from < to) {
+      MinuteBitmap.clear(dayBusyMinutes, from, to);
+      for (TimeRange busyTime : getBusyTimes(TimeRange.fromStartEnd(from, to, false))) {
+        MinuteBitmap.set(dayBusyMinutes, busyTime.start(), busyTime.end());
+      }
+    }
+  }
+
+  /** Adds a key at {@code time}, with the count of the time just before it. */
+  private void split(int time) {
+    if (!counts.containsKey(time)) {
+      Map.Entry<Integer, Integer> before = counts.lowerEntry(time);
+      counts.put(time, (before == null) ? 0 : before.getValue());
+    }
+  }
+
+  /** Removes the key at {@code time} if it has the same count as the time just before it. */
+  private void join(int time) {
+    Integer count = counts.get(time);
+    Map.Entry<Integer, Integer> before = counts.lowerEntry(time);
+    if (count != null && count == ((before == null) ? 0 : before.getValue())) {
+      counts.remove(time);
+    }
+  }
+}
@@ -0,0 +1,311 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An index over a calendar that keeps, for each attendee, the events they attend and their merged
+ * busy times. It lets a query look at only the people in a meeting request instead of at every
+ * event in the calendar. Events can be added and removed while the index is in use, and each edit
+ * only updates the busy times of the event's attendees. Attendees can also have working hours, and
+ * the times outside of them count as busy. Safe to share between threads.
+ */
+public final class CalendarIndex implements BusyTimeSource {
+  /** Gets told about edits to the calendar. */
+  public interface Listener {
+    /**
+     * Called after an event attended by {@code attendees} is added or removed, or after the working
+     * hours of one of them are changed.
+     */
+    void attendeesChanged(Collection<String> attendees);
+  }
+
+  private static final Comparator<Event> ORDER_BY_START =
+      new Comparator<Event>() {
+        @Override
+        public int compare(Event a, Event b) {
+          return TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen());
+        }
+      };
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // How many copies of each event are in the calendar. Equal events are kept as one key.
+  private final Map<Event, Integer> eventCounts = new HashMap<>();
+  private final Map<String, Set<Event>> eventsByAttendee = new HashMap<>();
+  private final Map<String, BusyTimeline> busyTimelines = new HashMap<>();
+  private final Map<String, WorkingHours> workingHours = new HashMap<>();
+  private int numEvents = 0;
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  /** Creates an empty index. */
+  public CalendarIndex() {}
+
+  /** Creates an index over {@code events}. */
+  public CalendarIndex(Collection<Event> events) {
+    for (Event event : events) {
+      addEvent(event);
+    }
+  }
+
+  /** Registers {@code listener} to be told about every later edit to the calendar. */
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /** Adds an event to the calendar. */
+  public void addEvent(Event event) {
+    lock.writeLock().lock();
+    try {
+      Integer count = eventCounts.get(event);
+      eventCounts.put(event, (count == null) ? 1 : count + 1);
+      numEvents++;
+
+      for (String attendee : event.getAttendees()) {
+        Set<Event> events = eventsByAttendee.get(attendee);
+        if (events == null) {
+          events = new HashSet<>();
+          eventsByAttendee.put(attendee, events);
+          busyTimelines.put(attendee, new BusyTimeline());
+        }
+        events.add(event);
+        busyTimelines.get(attendee).add(event.getWhen());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    notifyListeners(event.getAttendees());
+  }
+
+  /**
+   * Removes one copy of an event from the calendar. Returns false if the calendar has no event
+   * equal to {@code event}.
+   */
+  public boolean removeEvent(Event event) {
+    lock.writeLock().lock();
+    try {
+      Integer count = eventCounts.get(event);
+      if (count == null) {
+        return false;
+      }
+
+      if (count == 1) {
+        eventCounts.remove(event);
+      } else {
+        eventCounts.put(event, count - 1);
+      }
+      numEvents--;
+
+      for (String attendee : event.getAttendees()) {
+        Set<Event> events = eventsByAttendee.get(attendee);
+        if (count == 1) {
+          events.remove(event);
+        }
+
+        BusyTimeline busyTimeline = busyTimelines.get(attendee);
+        if (busyTimeline != null) {
+          busyTimeline.remove(event.getWhen());
+        }
+        // An empty timeline does not mean the attendee has no events left, since an event with no
+        // length never adds to it.
+        if (events.isEmpty()) {
+          eventsByAttendee.remove(attendee);
+          busyTimelines.remove(attendee);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    notifyListeners(event.getAttendees());
+    return true;
+  }
+
+  /**
+   * Sets the hours {@code attendee} works, outside of which they count as busy. Null clears them,
+   * so that the attendee can meet at any time they have no event.
+   */
+  public void setWorkingHours(String attendee, WorkingHours hours) {
+    lock.writeLock().lock();
+    try {
+      if (hours == null) {
+        workingHours.remove(attendee);
+      } else {
+        workingHours.put(attendee, hours);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    notifyListeners(Collections.singleton(attendee));
+  }
+
+  /** Returns the hours {@code attendee} works, or null if they can meet at any time. */
+  public WorkingHours getWorkingHours(String attendee) {
+    lock.readLock().lock();
+    try {
+      return workingHours.get(attendee);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns how many events are in the calendar. */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return numEvents;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns the events {@code attendee} attends, sorted by start time. */
+  public List<Event> eventsFor(String attendee) {
+    List<Event> events = new ArrayList<>(eventsFor(Collections.singleton(attendee)));
+    Collections.sort(events, ORDER_BY_START);
+    return events;
+  }
+
+  /**
+   * Returns every event attended by at least one of {@code attendees}. An event attended by several
+   * of them is only returned once, but an event that was added more than once is returned once for
+   * each time it was added.
+   */
+  public Collection<Event> eventsFor(Collection<String> attendees) {
+    lock.readLock().lock();
+    try {
+      Set<Event> distinctEvents = new HashSet<>();
+      for (String attendee : attendees) {
+        Set<Event> attended = eventsByAttendee.get(attendee);
+        if (attended != null) {
+          distinctEvents.addAll(attended);
+        }
+      }
+
+      List<Event> events = new ArrayList<>(distinctEvents.size());
+      for (Event event : distinctEvents) {
+        for (int i = eventCounts.get(event); i > 0; i--) {
+          events.add(event);
+        }
+      }
+      return events;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns every event that a mandatory or optional attendee of {@code request} attends. These are
+   * the only events that can affect the answer to the request.
+   */
+  public Collection<Event> eventsFor(MeetingRequest request) {
+    List<String> attendees = new ArrayList<>(request.getAttendees());
+    attendees.addAll(request.getOptionalAttendees());
+    return eventsFor(attendees);
+  }
+
+  /**
+   * Returns a bitmap of the minutes of the first day when at least one of {@code attendees} is
+   * busy, as described in {@code MinuteBitmap}. A clear bit is a minute when all of them are free.
+   */
+  long[] getBusyMinutes(Collection<String> attendees) {
+    long[] busyMinutes = new long[MinuteBitmap.WORDS];
+    lock.readLock().lock();
+    try {
+      for (String attendee : attendees) {
+        BusyTimeline busyTimeline = busyTimelines.get(attendee);
+        if (busyTimeline != null) {
+          busyTimeline.addBusyMinutes(busyMinutes);
+        }
+        WorkingHours hours = workingHours.get(attendee);
+        if (hours != null) {
+          hours.addOffMinutes(busyMinutes);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return busyMinutes;
+  }
+
+  /**
+   * Returns the times {@code attendee} is busy during {@code window}, in order. Overlapping and
+   * back-to-back events are merged into a single busy time, along with the times outside of the
+   * attendee's working hours.
+   */
+  @Override
+  public List<TimeRange> getBusyTimes(String attendee, TimeRange window) {
+    lock.readLock().lock();
+    try {
+      BusyTimeline busyTimeline = busyTimelines.get(attendee);
+      List<TimeRange> busyTimes =
+          (busyTimeline == null)
+              ? Collections.<TimeRange>emptyList()
+              : busyTimeline.getBusyTimes(window);
+      WorkingHours hours = workingHours.get(attendee);
+      return (hours == null) ? busyTimes : merge(busyTimes, hours.getOffHours(window));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Merges two lists of times that are each in order and already merged, joining the times that
+   * overlap or touch.
+   */
+  private static List<TimeRange> merge(List<TimeRange> a, List<TimeRange> b) {
+    List<TimeRange> merged = new ArrayList<>(a.size() + b.size());
+    int i = 0;
+    int j = 0;
+    while (i < a.size() || j < b.size()) {
+      TimeRange next;
+      if (j == b.size() || (i < a.size() && a.get(i).start() <= b.get(j).start())) {
+        next = a.get(i++);
+      } else {
+        next = b.get(j++);
+      }
+
+      int last = merged.size() - 1;
+      if (last >= 0 && merged.get(last).end() >= next.start()) {
+        TimeRange joined = merged.get(last);
+        if (next.end() > joined.end()) {
+          merged.set(last, TimeRange.fromStartEnd(joined.start(), next.end(), false));
+        }
+      } else {
+        merged.add(next);
+      }
+    }
+    return merged;
+  }
+
+  /** Tells the listeners about an edit. Runs after the lock is released. */
+  private void notifyListeners(Collection<String> attendees) {
+    for (Listener listener : listeners) {
+      listener.attendeesChanged(attendees);
+    }
+  }
+}
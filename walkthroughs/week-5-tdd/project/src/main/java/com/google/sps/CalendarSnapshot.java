@@ -0,0 +1,381 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A calendar saved to a file in a layout that can be searched where it lies. Opening a snapshot
+ * maps the file into memory with {@code FileChannel.map} and reads nothing up front, so it is ready
+ * at once however big the calendar is, its data stays off the heap, and every process on a machine
+ * that opens the same file shares one copy of it in the page cache.
+ *
+ * <p>The file holds the columns of an {@code EventStore}, the titles and attendee names, a hash
+ * table from attendee name to id, and the merged busy times of each attendee in order, so that the
+ * busy times of an attendee in a window are found by binary search. Snapshots are read-only and
+ * safe to share between threads. They are a read-only list of events, each made when it is read.
+ */
+public final class CalendarSnapshot extends AbstractList<Event> implements BusyTimeSource {
+  private static final int MAGIC = 0x53505343;
+  private static final int VERSION = 1;
+  private static final int HEADER_INTS = 8;
+
+  private final ByteBuffer bytes;
+  private final IntBuffer ints;
+  private final int numEvents;
+  private final int numAttendees;
+  private final int hashSlots;
+
+  // Where each section starts, in ints from the start of the file, or in bytes for names.
+  private final int startsAt;
+  private final int durationsAt;
+  private final int titleIdsAt;
+  private final int attendeeOffsetsAt;
+  private final int attendeeIdsAt;
+  private final int busyOffsetsAt;
+  private final int busyTimesAt;
+  private final int titleOffsetsAt;
+  private final int nameOffsetsAt;
+  private final int hashTableAt;
+  private final int namesAt;
+
+  private CalendarSnapshot(ByteBuffer bytes) throws IOException {
+    this.bytes = bytes;
+    this.ints = bytes.asIntBuffer();
+    if (bytes.capacity() < 4 * HEADER_INTS || ints.get(0) != MAGIC || ints.get(1) != VERSION) {
+      throw new IOException("Not a calendar snapshot");
+    }
+
+    numEvents = ints.get(2);
+    int numAttendeeIds = ints.get(3);
+    int numTitles = ints.get(4);
+    numAttendees = ints.get(5);
+    int numBusyTimes = ints.get(6);
+    hashSlots = ints.get(7);
+
+    startsAt = HEADER_INTS;
+    durationsAt = startsAt + numEvents;
+    titleIdsAt = durationsAt + numEvents;
+    attendeeOffsetsAt = titleIdsAt + numEvents;
+    attendeeIdsAt = attendeeOffsetsAt + numEvents + 1;
+    busyOffsetsAt = attendeeIdsAt + numAttendeeIds;
+    busyTimesAt = busyOffsetsAt + numAttendees + 1;
+    titleOffsetsAt = busyTimesAt + 2 * numBusyTimes;
+    nameOffsetsAt = titleOffsetsAt + numTitles + 1;
+    hashTableAt = nameOffsetsAt + numAttendees + 1;
+    namesAt = 4 * (hashTableAt + hashSlots);
+  }
+
+  /** Maps the snapshot at {@code path} into memory. */
+  public static CalendarSnapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed.
+      return new CalendarSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Saves {@code store} as a snapshot at {@code path}. The snapshot is written next to it and then
+   * moved into place, so processes that have the old snapshot open keep reading it unchanged.
+   */
+  public static void write(EventStore store, Path path) throws IOException {
+    int numEvents = store.size();
+    int numAttendees = store.getAttendeeCount();
+    int numTitles = store.getTitleCount();
+    // The ids of all the events end where the ids of an event after the last would start.
+    int numAttendeeIds = store.attendeesFrom(numEvents);
+    int[] busyOffsets = new int[numAttendees + 1];
+    int[] busyTimes = getBusyTimes(store, busyOffsets);
+    int hashSlots = Integer.highestOneBit(Math.max(numAttendees, 1)) * 4;
+
+    byte[][] titles = new byte[numTitles][];
+    long nameBytes = 0;
+    for (int i = 0; i < numTitles; i++) {
+      titles[i] = store.titleOf(i).getBytes(StandardCharsets.UTF_8);
+      nameBytes += titles[i].length;
+    }
+    byte[][] names = new byte[numAttendees][];
+    for (int i = 0; i < numAttendees; i++) {
+      names[i] = store.attendeeOf(i).getBytes(StandardCharsets.UTF_8);
+      nameBytes += names[i].length;
+    }
+
+    long numInts =
+        HEADER_INTS
+            + 4L * numEvents
+            + 1
+            + numAttendeeIds
+            + numAttendees
+            + 1
+            + busyTimes.length
+            + numTitles
+            + 1
+            + numAttendees
+            + 1
+            + hashSlots;
+    long size = 4 * numInts + nameBytes;
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("The calendar is too big for one snapshot");
+    }
+
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temporary,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      IntBuffer out = buffer.asIntBuffer();
+      out.put(MAGIC).put(VERSION).put(numEvents).put(numAttendeeIds);
+      out.put(numTitles).put(numAttendees).put(busyTimes.length / 2).put(hashSlots);
+      for (int i = 0; i < numEvents; i++) {
+        out.put(store.start(i));
+      }
+      for (int i = 0; i < numEvents; i++) {
+        out.put(store.duration(i));
+      }
+      for (int i = 0; i < numEvents; i++) {
+        out.put(store.titleId(i));
+      }
+      out.put(0);
+      for (int i = 0; i < numEvents; i++) {
+        out.put(store.attendeesTo(i));
+      }
+      for (int i = 0; i < numAttendeeIds; i++) {
+        out.put(store.attendeeId(i));
+      }
+      out.put(busyOffsets);
+      out.put(busyTimes);
+
+      int offset = 0;
+      out.put(offset);
+      for (byte[] title : titles) {
+        offset += title.length;
+        out.put(offset);
+      }
+      out.put(offset);
+      for (byte[] name : names) {
+        offset += name.length;
+        out.put(offset);
+      }
+
+      // Holds id + 1 in the slot for each name, so that empty slots are 0.
+      int[] hashTable = new int[hashSlots];
+      for (int id = 0; id < numAttendees; id++) {
+        int slot = slotOf(store.attendeeOf(id), hashSlots);
+        while (hashTable[slot] != 0) {
+          slot = (slot + 1) & (hashSlots - 1);
+        }
+        hashTable[slot] = id + 1;
+      }
+      out.put(hashTable);
+
+      buffer.position((int) (4 * numInts));
+      for (byte[] title : titles) {
+        buffer.put(title);
+      }
+      for (byte[] name : names) {
+        buffer.put(name);
+      }
+      buffer.force();
+    }
+    Files.move(
+        temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns the merged busy times of every attendee of {@code store} as start and end pairs, with
+   * attendee {@code id}'s from pair {@code busyOffsets[id]} up to pair {@code busyOffsets[id + 1]}.
+   */
+  private static int[] getBusyTimes(EventStore store, int[] busyOffsets) {
+    // Groups the events by attendee, packing each as its start and end so that sorting a group
+    // puts it in order of start.
+    int numAttendees = busyOffsets.length - 1;
+    int[] groupOffsets = new int[numAttendees + 1];
+    for (int i = 0; i < store.size(); i++) {
+      for (int j = store.attendeesFrom(i); j < store.attendeesTo(i); j++) {
+        groupOffsets[store.attendeeId(j) + 1]++;
+      }
+    }
+    for (int id = 0; id < numAttendees; id++) {
+      groupOffsets[id + 1] += groupOffsets[id];
+    }
+    long[] packed = new long[groupOffsets[numAttendees]];
+    int[] next = Arrays.copyOf(groupOffsets, numAttendees);
+    for (int i = 0; i < store.size(); i++) {
+      long time = ((long) store.start(i) << 32) | (store.end(i) & 0xFFFFFFFFL);
+      for (int j = store.attendeesFrom(i); j < store.attendeesTo(i); j++) {
+        packed[next[store.attendeeId(j)]++] = time;
+      }
+    }
+
+    int[] busyTimes = new int[2 * packed.length];
+    int numBusyTimes = 0;
+    for (int id = 0; id < numAttendees; id++) {
+      busyOffsets[id] = numBusyTimes;
+      Arrays.sort(packed, groupOffsets[id], groupOffsets[id + 1]);
+      for (int k = groupOffsets[id]; k < groupOffsets[id + 1]; k++) {
+        int start = (int) (packed[k] >> 32);
+        int end = (int) packed[k];
+        if (start >= end) {
+          continue;
+        }
+        if (numBusyTimes > busyOffsets[id] && busyTimes[2 * numBusyTimes - 1] >= start) {
+          busyTimes[2 * numBusyTimes - 1] = Math.max(busyTimes[2 * numBusyTimes - 1], end);
+        } else {
+          busyTimes[2 * numBusyTimes] = start;
+          busyTimes[2 * numBusyTimes + 1] = end;
+          numBusyTimes++;
+        }
+      }
+    }
+    busyOffsets[numAttendees] = numBusyTimes;
+    return Arrays.copyOf(busyTimes, 2 * numBusyTimes);
+  }
+
+  private static int slotOf(String name, int hashSlots) {
+    int hash = name.hashCode();
+    return (hash ^ (hash >>> 16)) & (hashSlots - 1);
+  }
+
+  /** Returns a new {@code Event} with the fields of event {@code index}. */
+  @Override
+  public Event get(int index) {
+    if (index < 0 || index >= numEvents) {
+      throw new IndexOutOfBoundsException("index " + index + " of " + numEvents);
+    }
+
+    int from = ints.get(attendeeOffsetsAt + index);
+    int to = ints.get(attendeeOffsetsAt + index + 1);
+    List<String> attendees = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      attendees.add(nameOf(ints.get(attendeeIdsAt + i)));
+    }
+    int titleId = ints.get(titleIdsAt + index);
+    String title =
+        stringAt(ints.get(titleOffsetsAt + titleId), ints.get(titleOffsetsAt + titleId + 1));
+    TimeRange when =
+        TimeRange.fromStartDuration(ints.get(startsAt + index), ints.get(durationsAt + index));
+    return new Event(title, when, attendees);
+  }
+
+  @Override
+  public int size() {
+    return numEvents;
+  }
+
+  /** Returns how many distinct attendees the events have. */
+  public int getAttendeeCount() {
+    return numAttendees;
+  }
+
+  /**
+   * Returns the times {@code attendee} is busy during {@code window}, in order. Overlapping and
+   * back-to-back events are merged into a single busy time.
+   */
+  @Override
+  public List<TimeRange> getBusyTimes(String attendee, TimeRange window) {
+    int id = idOf(attendee);
+    if (id == -1) {
+      return Collections.emptyList();
+    }
+
+    // Finds the first busy time that ends after the window starts.
+    int low = ints.get(busyOffsetsAt + id);
+    int high = ints.get(busyOffsetsAt + id + 1);
+    int last = high;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ints.get(busyTimesAt + 2 * middle + 1) <= window.start()) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    List<TimeRange> busyTimes = new ArrayList<>();
+    for (int i = low; i < last; i++) {
+      int start = ints.get(busyTimesAt + 2 * i);
+      if (start >= window.end()) {
+        break;
+      }
+      int end = ints.get(busyTimesAt + 2 * i + 1);
+      busyTimes.add(
+          TimeRange.fromStartEnd(
+              Math.max(start, window.start()), Math.min(end, window.end()), false));
+    }
+    return busyTimes;
+  }
+
+  /** Returns the id of {@code attendee}, or -1 if they attend no event. */
+  private int idOf(String attendee) {
+    if (hashSlots == 0) {
+      return -1;
+    }
+
+    byte[] name = attendee.getBytes(StandardCharsets.UTF_8);
+    for (int slot = slotOf(attendee, hashSlots); ; slot = (slot + 1) & (hashSlots - 1)) {
+      int id = ints.get(hashTableAt + slot) - 1;
+      if (id == -1) {
+        return -1;
+      }
+      if (nameEquals(id, name)) {
+        return id;
+      }
+    }
+  }
+
+  private boolean nameEquals(int id, byte[] name) {
+    int from = ints.get(nameOffsetsAt + id);
+    int to = ints.get(nameOffsetsAt + id + 1);
+    if (to - from != name.length) {
+      return false;
+    }
+    for (int i = 0; i < name.length; i++) {
+      if (bytes.get(namesAt + from + i) != name[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String nameOf(int id) {
+    return stringAt(ints.get(nameOffsetsAt + id), ints.get(nameOffsetsAt + id + 1));
+  }
+
+  private String stringAt(int from, int to) {
+    byte[] string = new byte[to - from];
+    for (int i = 0; i < string.length; i++) {
+      string[i] = bytes.get(namesAt + from + i);
+    }
+    return new String(string, StandardCharsets.UTF_8);
+  }
+}
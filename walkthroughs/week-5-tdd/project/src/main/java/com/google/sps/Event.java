@@ -28,6 +28,11 @@ public final class Event {
   private final TimeRange when;
   private final Set<String> attendees = new HashSet<>();
 
+  // The attendees encoded by the last dictionary that asked for them. Calendars are normally
+  // queried with a single dictionary, so this is only built once per event. Transient so that it
+  // is not sent to the client with the event.
+  private transient volatile AttendeeMask attendeeMask;
+
   /**
    * Creates a new event.
    *
@@ -76,6 +81,20 @@ public final class Event {
     return Collections.unmodifiableSet(attendees);
   }
 
+  /**
+   * Returns the attendees of this event as a mask of ids from {@code dictionary}. The mask is kept
+   * so that later calls with the same dictionary do not have to look up the names again. Callers
+   * must not modify the returned array.
+   */
+  public long[] getAttendeeMask(AttendeeDictionary dictionary) {
+    AttendeeMask cached = attendeeMask;
+    if (cached == null || cached.dictionary != dictionary) {
+      cached = new AttendeeMask(dictionary, dictionary.maskOf(attendees));
+      attendeeMask = cached;
+    }
+    return cached.mask;
+  }
+
   @Override
   public int hashCode() {
     // For the hash code, just use the title. Most events "should" have different names and will
@@ -93,4 +112,15 @@ public final class Event {
     // interface documentation, equals will check for set-equality across all set implementations.
     return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
   }
+
+  /** A mask of attendee ids along with the dictionary that gave out the ids. */
+  private static final class AttendeeMask {
+    private final AttendeeDictionary dictionary;
+    private final long[] mask;
+
+    private AttendeeMask(AttendeeDictionary dictionary, long[] mask) {
+      this.dictionary = dictionary;
+      this.mask = mask;
+    }
+  }
 }
@@ -0,0 +1,598 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads events from a large file a block at a time, so that a calendar can be loaded at startup
+ * without holding the file in memory. Each line of the file is one event, either as comma-separated
+ * values:
+ *
+ * <pre>
+ * title,start,end,attendees
+ * "Standup, daily",540,570,Amelia;Ava
+ * </pre>
+ *
+ * or as a JSON object:
+ *
+ * <pre>
+ * {"title": "Standup, daily", "start": 540, "end": 570, "attendees": ["Amelia", "Ava"]}
+ * </pre>
+ *
+ * Times are in minutes from the start of the first day, and the end is exclusive. A header line is
+ * skipped, as are JSON keys other than these four. Lines are parsed in place from the bytes read,
+ * and each distinct title and attendee name is only decoded once and then shared by every event
+ * that uses it. Not safe to share between threads.
+ */
+public final class EventLoader {
+  /** The layout of an events file. */
+  public enum Format {
+    CSV,
+    NDJSON;
+
+    /** Returns {@code NDJSON} for a file ending in .ndjson or .jsonl, and {@code CSV} otherwise. */
+    public static Format forFileName(String fileName) {
+      return (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) ? NDJSON : CSV;
+    }
+  }
+
+  /** Gets told how loading is going. */
+  public interface Progress {
+    /** Called every few events with the stats so far. */
+    void loaded(Stats stats);
+  }
+
+  /** How much was loaded and how fast. Updated in place while loading. */
+  public static final class Stats {
+    private long events = 0;
+    private long lines = 0;
+    private long bytes = 0;
+    private final long startNanos = System.nanoTime();
+    private long elapsedNanos = 0;
+
+    private Stats() {}
+
+    /** Returns how many events were read. */
+    public long getEvents() {
+      return events;
+    }
+
+    /** Returns how many lines were read, including the header and blank lines. */
+    public long getLines() {
+      return lines;
+    }
+
+    /** Returns how many bytes were read. */
+    public long getBytes() {
+      return bytes;
+    }
+
+    /** Returns how long loading took, in nanoseconds. */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /** Returns how many events were read per second. */
+    public double getEventsPerSecond() {
+      return (elapsedNanos == 0) ? 0 : events * 1e9 / elapsedNanos;
+    }
+
+    /** Returns how many megabytes were read per second. */
+    public double getMegabytesPerSecond() {
+      return (elapsedNanos == 0) ? 0 : bytes * 1e9 / elapsedNanos / (1 << 20);
+    }
+
+    private void stopClock() {
+      elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d events from %d lines (%.1f MB) in %d ms, %.0f events/s, %.1f MB/s",
+          events,
+          lines,
+          bytes / (double) (1 << 20),
+          elapsedNanos / 1000000,
+          getEventsPerSecond(),
+          getMegabytesPerSecond());
+    }
+  }
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final byte[] CSV_HEADER = "title,".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] TITLE = "title".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] START = "start".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] END = "end".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] ATTENDEES = "attendees".getBytes(StandardCharsets.UTF_8);
+
+  private final Format format;
+  private final StringPool names = new StringPool();
+  private final List<String> attendees = new ArrayList<>();
+  private Progress progress = null;
+  private long progressInterval = Long.MAX_VALUE;
+
+  // The line being parsed is line[pos, lineEnd).
+  private byte[] line;
+  private int pos;
+  private int lineEnd;
+  private long lineNumber;
+
+  // The start of a line that did not end in the last block read.
+  private byte[] carry = new byte[256];
+  private int carryLength;
+
+  /** Creates a loader for files laid out as {@code format}. */
+  public EventLoader(Format format) {
+    if (format == null) {
+      throw new IllegalArgumentException("format cannot be null");
+    }
+    this.format = format;
+  }
+
+  /** Tells {@code progress} how loading is going every {@code interval} events. */
+  public void setProgress(Progress progress, long interval) {
+    if (progress == null) {
+      throw new IllegalArgumentException("progress cannot be null");
+    }
+
+    if (interval < 1) {
+      throw new IllegalArgumentException("interval must be at least one");
+    }
+
+    this.progress = progress;
+    this.progressInterval = interval;
+  }
+
+  /** Returns how many distinct titles and attendee names this loader has read. */
+  public int getNameCount() {
+    return names.size();
+  }
+
+  /** Adds the events in the file at {@code path} to {@code events}. */
+  public Stats load(Path path, Collection<? super Event> events) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return load(channel, events);
+    }
+  }
+
+  /**
+   * Adds the events read from {@code channel} to {@code events}. Throws an IllegalArgumentException
+   * naming the line if a line is not an event.
+   */
+  public Stats load(ReadableByteChannel channel, Collection<? super Event> events)
+      throws IOException {
+    Stats stats = new Stats();
+    lineNumber = 0;
+    carryLength = 0;
+
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    byte[] block = buffer.array();
+    int read;
+    while ((read = channel.read(buffer)) != -1) {
+      stats.bytes += read;
+      int length = buffer.position();
+      int lineStart = 0;
+      for (int i = 0; i < length; i++) {
+        if (block[i] == '\n') {
+          if (carryLength == 0) {
+            parseLine(block, lineStart, i, events, stats);
+          } else {
+            appendToCarry(block, lineStart, i);
+            parseLine(carry, 0, carryLength, events, stats);
+            carryLength = 0;
+          }
+          lineStart = i + 1;
+        }
+      }
+      appendToCarry(block, lineStart, length);
+      buffer.clear();
+    }
+    if (carryLength > 0) {
+      parseLine(carry, 0, carryLength, events, stats);
+      carryLength = 0;
+    }
+
+    stats.stopClock();
+    return stats;
+  }
+
+  private void appendToCarry(byte[] bytes, int from, int to) {
+    int length = to - from;
+    if (carryLength + length > carry.length) {
+      carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + length));
+    }
+    System.arraycopy(bytes, from, carry, carryLength, length);
+    carryLength += length;
+  }
+
+  private void parseLine(
+      byte[] bytes, int from, int to, Collection<? super Event> events, Stats stats) {
+    lineNumber++;
+    stats.lines++;
+    if (to > from && bytes[to - 1] == '\r') {
+      to--;
+    }
+    line = bytes;
+    pos = from;
+    lineEnd = to;
+
+    Event event = (format == Format.CSV) ? parseCsv() : parseJson();
+    if (event == null) {
+      return;
+    }
+
+    events.add(event);
+    stats.events++;
+    if (stats.events % progressInterval == 0) {
+      stats.stopClock();
+      progress.loaded(stats);
+    }
+  }
+
+  /** Returns the event on a line of comma-separated values, or null for a header or blank line. */
+  private Event parseCsv() {
+    if (pos == lineEnd || (lineNumber == 1 && startsWith(CSV_HEADER))) {
+      return null;
+    }
+
+    String title = readCsvTitle();
+    expect(',');
+    int start = readInt();
+    expect(',');
+    int end = readInt();
+    expect(',');
+
+    // The attendees are separated by semicolons, and can be quoted as a whole.
+    attendees.clear();
+    boolean quoted = pos < lineEnd && line[pos] == '"';
+    int fieldEnd = lineEnd;
+    if (quoted) {
+      pos++;
+      fieldEnd = indexOf('"', pos, lineEnd);
+      if (fieldEnd == -1) {
+        throw error("unterminated quote");
+      }
+    }
+    while (pos < fieldEnd) {
+      int nameEnd = indexOf(';', pos, fieldEnd);
+      if (nameEnd == -1) {
+        nameEnd = fieldEnd;
+      }
+      if (nameEnd > pos) {
+        attendees.add(names.intern(line, pos, nameEnd));
+      }
+      pos = nameEnd + 1;
+    }
+    pos = quoted ? fieldEnd + 1 : fieldEnd;
+    expectEnd();
+
+    return newEvent(title, start, end);
+  }
+
+  /** Reads a title, which has its quotes doubled if it is quoted. */
+  private String readCsvTitle() {
+    if (pos == lineEnd || line[pos] != '"') {
+      int from = pos;
+      int to = indexOf(',', pos, lineEnd);
+      pos = (to == -1) ? lineEnd : to;
+      return names.intern(line, from, pos);
+    }
+
+    int from = ++pos;
+    boolean escaped = false;
+    while (true) {
+      if (pos == lineEnd) {
+        throw error("unterminated quote");
+      }
+      if (line[pos] == '"') {
+        if (pos + 1 < lineEnd && line[pos + 1] == '"') {
+          escaped = true;
+          pos += 2;
+          continue;
+        }
+        break;
+      }
+      pos++;
+    }
+    int to = pos++;
+
+    if (!escaped) {
+      return names.intern(line, from, to);
+    }
+    String title = names.get(line, from, to);
+    if (title == null) {
+      title = new String(line, from, to - from, StandardCharsets.UTF_8).replace("\"\"", "\"");
+      names.put(line, from, to, title);
+    }
+    return title;
+  }
+
+  /** Returns the event in a JSON object, or null for a blank line. */
+  private Event parseJson() {
+    skipWhitespace();
+    if (pos == lineEnd) {
+      return null;
+    }
+
+    String title = null;
+    int start = 0;
+    int end = 0;
+    boolean hasStart = false;
+    boolean hasEnd = false;
+    attendees.clear();
+
+    expect('{');
+    skipWhitespace();
+    if (pos < lineEnd && line[pos] == '}') {
+      pos++;
+    } else {
+      while (true) {
+        skipWhitespace();
+        if (pos == lineEnd || line[pos] != '"') {
+          throw error("expected a key");
+        }
+        int keyFrom = pos + 1;
+        skipJsonString();
+        int keyTo = pos - 1;
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+
+        if (matches(keyFrom, keyTo, TITLE)) {
+          title = readJsonString();
+        } else if (matches(keyFrom, keyTo, START)) {
+          start = readInt();
+          hasStart = true;
+        } else if (matches(keyFrom, keyTo, END)) {
+          end = readInt();
+          hasEnd = true;
+        } else if (matches(keyFrom, keyTo, ATTENDEES)) {
+          readJsonAttendees();
+        } else {
+          skipJsonValue();
+        }
+
+        skipWhitespace();
+        if (pos < lineEnd && line[pos] == ',') {
+          pos++;
+          continue;
+        }
+        expect('}');
+        break;
+      }
+    }
+    skipWhitespace();
+    expectEnd();
+
+    if (title == null || !hasStart || !hasEnd) {
+      throw error("an event needs a title, a start and an end");
+    }
+    return newEvent(title, start, end);
+  }
+
+  private void readJsonAttendees() {
+    expect('[');
+    skipWhitespace();
+    if (pos < lineEnd && line[pos] == ']') {
+      pos++;
+      return;
+    }
+    while (true) {
+      skipWhitespace();
+      attendees.add(readJsonString());
+      skipWhitespace();
+      if (pos < lineEnd && line[pos] == ',') {
+        pos++;
+        continue;
+      }
+      expect(']');
+      return;
+    }
+  }
+
+  private String readJsonString() {
+    if (pos == lineEnd || line[pos] != '"') {
+      throw error("expected a string");
+    }
+    int from = pos + 1;
+    boolean escaped = skipJsonString();
+    int to = pos - 1;
+
+    if (!escaped) {
+      return names.intern(line, from, to);
+    }
+    String value = names.get(line, from, to);
+    if (value == null) {
+      value = unescapeJson(new String(line, from, to - from, StandardCharsets.UTF_8));
+      names.put(line, from, to, value);
+    }
+    return value;
+  }
+
+  /** Moves past the string starting at {@code pos}, and returns whether it has escapes. */
+  private boolean skipJsonString() {
+    boolean escaped = false;
+    pos++;
+    while (pos < lineEnd) {
+      byte b = line[pos];
+      if (b == '\\') {
+        escaped = true;
+        pos += 2;
+      } else if (b == '"') {
+        pos++;
+        return escaped;
+      } else {
+        pos++;
+      }
+    }
+    throw error("unterminated string");
+  }
+
+  /** Moves past a value that is not needed, stopping at the comma or brace after it. */
+  private void skipJsonValue() {
+    int depth = 0;
+    while (true) {
+      if (pos >= lineEnd) {
+        throw error("unexpected end of line");
+      }
+      byte b = line[pos];
+      if (b == '"') {
+        skipJsonString();
+        continue;
+      }
+      if (b == '{' || b == '[') {
+        depth++;
+      } else if (b == '}' || b == ']') {
+        if (depth == 0) {
+          return;
+        }
+        depth--;
+      } else if (b == ',' && depth == 0) {
+        return;
+      }
+      pos++;
+    }
+  }
+
+  private String unescapeJson(String escaped) {
+    StringBuilder value = new StringBuilder(escaped.length());
+    for (int i = 0; i < escaped.length(); i++) {
+      char c = escaped.charAt(i);
+      if (c != '\\') {
+        value.append(c);
+        continue;
+      }
+
+      char next = escaped.charAt(++i);
+      switch (next) {
+        case 'b':
+          value.append('\b');
+          break;
+        case 'f':
+          value.append('\f');
+          break;
+        case 'n':
+          value.append('\n');
+          break;
+        case 'r':
+          value.append('\r');
+          break;
+        case 't':
+          value.append('\t');
+          break;
+        case 'u':
+          try {
+            value.append((char) Integer.parseInt(escaped.substring(i + 1, i + 5), 16));
+          } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw error("bad unicode escape");
+          }
+          i += 4;
+          break;
+        default:
+          value.append(next);
+      }
+    }
+    return value.toString();
+  }
+
+  private int readInt() {
+    boolean negative = pos < lineEnd && line[pos] == '-';
+    if (negative) {
+      pos++;
+    }
+
+    int digitsFrom = pos;
+    long value = 0;
+    while (pos < lineEnd && line[pos] >= '0' && line[pos] <= '9') {
+      value = value * 10 + (line[pos] - '0');
+      if (value > Integer.MAX_VALUE) {
+        throw error("number out of range");
+      }
+      pos++;
+    }
+    if (pos == digitsFrom) {
+      throw error("expected a number");
+    }
+    return (int) (negative ? -value : value);
+  }
+
+  private Event newEvent(String title, int start, int end) {
+    if (end < start) {
+      throw error("end is before start");
+    }
+    return new Event(title, TimeRange.fromStartEnd(start, end, false), attendees);
+  }
+
+  private void skipWhitespace() {
+    while (pos < lineEnd && (line[pos] == ' ' || line[pos] == '\t')) {
+      pos++;
+    }
+  }
+
+  private void expect(char c) {
+    if (pos == lineEnd || line[pos] != c) {
+      throw error("expected '" + c + "'");
+    }
+    pos++;
+  }
+
+  private void expectEnd() {
+    if (pos != lineEnd) {
+      throw error("unexpected text after the event");
+    }
+  }
+
+  private boolean startsWith(byte[] prefix) {
+    return lineEnd - pos >= prefix.length && matches(pos, pos + prefix.length, prefix);
+  }
+
+  private boolean matches(int from, int to, byte[] expected) {
+    if (to - from != expected.length) {
+      return false;
+    }
+    for (int i = 0; i < expected.length; i++) {
+      if (line[from + i] != expected[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int indexOf(char c, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (line[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException("Line " + lineNumber + ": " + message);
+  }
+}
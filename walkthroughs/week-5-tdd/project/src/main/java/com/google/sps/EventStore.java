@@ -0,0 +1,201 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A calendar stored as columns of numbers instead of as {@code Event} objects. Event {@code i} has
+ * its start and duration at index {@code i} of two int arrays, and its title as an index into a
+ * shared list of titles. The attendee ids of every event sit back to back in one array, with event
+ * {@code i}'s running from {@code attendeeOffsets[i]} up to {@code attendeeOffsets[i + 1]}, and ids
+ * given out by an {@code AttendeeDictionary}. An event takes about 16 bytes plus 4 per attendee,
+ * and a search scans the arrays in order without following any pointers.
+ *
+ * <p>The store is a read-only list of events for code that expects them, such as {@code
+ * CalendarIndex}. Each event is made when it is read, so scanning the columns is much faster.
+ * Events can only be added to the end. Not safe to share between threads while events are being
+ * added.
+ */
+public final class EventStore extends AbstractList<Event> {
+  private int size = 0;
+  private int[] starts = new int[16];
+  private int[] durations = new int[16];
+  private int[] titleIds = new int[16];
+  private int[] attendeeOffsets = new int[17];
+  private int[] attendeeIds = new int[16];
+
+  private final Map<String, Integer> titleIdsByTitle = new HashMap<>();
+  private final List<String> titles = new ArrayList<>();
+  private final AttendeeDictionary attendees = new AttendeeDictionary();
+
+  /** Creates an empty store. */
+  public EventStore() {}
+
+  /** Creates a store holding {@code events}. */
+  public EventStore(Collection<Event> events) {
+    for (Event event : events) {
+      add(event);
+    }
+    trimToSize();
+  }
+
+  /** Adds an event to the end of the store. */
+  @Override
+  public boolean add(Event event) {
+    TimeRange when = event.getWhen();
+    int numAttendees = event.getAttendees().size();
+    ensureCapacity(size + 1, attendeeOffsets[size] + numAttendees);
+
+    starts[size] = when.start();
+    durations[size] = when.duration();
+    titleIds[size] = titleIdOf(event.getTitle());
+    int offset = attendeeOffsets[size];
+    for (String attendee : event.getAttendees()) {
+      attendeeIds[offset++] = attendees.intern(attendee);
+    }
+    attendeeOffsets[++size] = offset;
+    modCount++;
+    return true;
+  }
+
+  /** Returns a new {@code Event} with the fields of event {@code index}. */
+  @Override
+  public Event get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + " of " + size);
+    }
+
+    List<String> eventAttendees = new ArrayList<>(attendeesTo(index) - attendeesFrom(index));
+    for (int i = attendeesFrom(index); i < attendeesTo(index); i++) {
+      eventAttendees.add(attendees.nameOf(attendeeIds[i]));
+    }
+    TimeRange when = TimeRange.fromStartDuration(starts[index], durations[index]);
+    return new Event(titles.get(titleIds[index]), when, eventAttendees);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** Returns how many distinct attendees the events have. */
+  public int getAttendeeCount() {
+    return attendees.size();
+  }
+
+  /** Returns how many distinct titles the events have. */
+  public int getTitleCount() {
+    return titles.size();
+  }
+
+  /** Shrinks the columns to fit the events, once no more events will be added. */
+  public void trimToSize() {
+    starts = Arrays.copyOf(starts, size);
+    durations = Arrays.copyOf(durations, size);
+    titleIds = Arrays.copyOf(titleIds, size);
+    attendeeOffsets = Arrays.copyOf(attendeeOffsets, size + 1);
+    attendeeIds = Arrays.copyOf(attendeeIds, attendeeOffsets[size]);
+  }
+
+  /** Returns when event {@code index} starts. */
+  int start(int index) {
+    return starts[index];
+  }
+
+  /** Returns when event {@code index} ends. */
+  int end(int index) {
+    return starts[index] + durations[index];
+  }
+
+  /** Returns how long event {@code index} is. */
+  int duration(int index) {
+    return durations[index];
+  }
+
+  /** Returns the id of the title of event {@code index}. */
+  int titleId(int index) {
+    return titleIds[index];
+  }
+
+  /** Returns the title that was given {@code titleId}. */
+  String titleOf(int titleId) {
+    return titles.get(titleId);
+  }
+
+  /** Returns the attendee that was given {@code id}. */
+  String attendeeOf(int id) {
+    return attendees.nameOf(id);
+  }
+
+  /** Returns where the attendee ids of event {@code index} start among those of all events. */
+  int attendeesFrom(int index) {
+    return attendeeOffsets[index];
+  }
+
+  /** Returns where the attendee ids of event {@code index} end among those of all events. */
+  int attendeesTo(int index) {
+    return attendeeOffsets[index + 1];
+  }
+
+  /** Returns the attendee id at {@code position} among those of all events. */
+  int attendeeId(int position) {
+    return attendeeIds[position];
+  }
+
+  /**
+   * Returns a mask with the bit of every attendee in {@code names} who attends an event in the
+   * store set, as described in {@code AttendeeDictionary}. Names not in the store are left out.
+   */
+  long[] maskOf(Collection<String> names) {
+    long[] mask = new long[(attendees.size() >> 6) + 1];
+    for (String name : names) {
+      int id = attendees.idOf(name);
+      if (id != -1) {
+        mask[id >> 6] |= 1L << id;
+      }
+    }
+    return mask;
+  }
+
+  private int titleIdOf(String title) {
+    Integer id = titleIdsByTitle.get(title);
+    if (id == null) {
+      id = titles.size();
+      titles.add(title);
+      titleIdsByTitle.put(title, id);
+    }
+    return id;
+  }
+
+  private void ensureCapacity(int events, int ids) {
+    if (events > starts.length) {
+      int capacity = Math.max(events, 2 * starts.length);
+      starts = Arrays.copyOf(starts, capacity);
+      durations = Arrays.copyOf(durations, capacity);
+      titleIds = Arrays.copyOf(titleIds, capacity);
+      attendeeOffsets = Arrays.copyOf(attendeeOffsets, capacity + 1);
+    }
+    if (ids > attendeeIds.length) {
+      attendeeIds = Arrays.copyOf(attendeeIds, Math.max(ids, 2 * attendeeIds.length));
+    }
+  }
+}
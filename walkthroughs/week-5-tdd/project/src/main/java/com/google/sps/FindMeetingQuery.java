@@ -14,26 +14,427 @@
 
 package com.google.sps;
 
+import com.google.sps.SchedulerMetrics.Phase;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public final class FindMeetingQuery {
 
   private static final int MINS_IN_DAY = 1440;
 
+  // Calendars with fewer events than this are always searched on the calling thread, since
+  // splitting them up costs more than it saves.
+  private static final int PARALLEL_THRESHOLD = 10000;
+
+  // The change a boundary makes when a mandatory attendee's event starts. See isMandatoryChange.
+  private static final int MANDATORY_CONFLICT = 1;
+
+  // The start time of a query or phase that began while no metrics were set. Nothing is recorded
+  // for it, even if metrics are set before it ends. System.nanoTime() can be zero or negative, but
+  // it would take centuries to reach the smallest long.
+  private static final long NOT_TIMED = Long.MIN_VALUE;
+
+  /** The algorithms available for finding the possible times of a meeting. */
+  public enum Engine {
+    /** Fills an array with one slot per minute of the day and walks all of its minutes. */
+    DAY_ARRAY,
+    /**
+     * Sorts the start and end points of the conflicting events and sweeps over them once, so the
+     * cost depends on the number of events rather than on how long they are.
+     */
+    SWEEP_LINE,
+    /**
+     * Same as {@code SWEEP_LINE}, but large calendars are split into parts whose conflicting
+     * events are found and sorted on a fork-join pool, and then merged.
+     */
+    PARALLEL_SWEEP_LINE
+  }
+
+  private final Engine engine;
+  private final AttendeeDictionary dictionary;
+  private final ForkJoinPool pool;
+  private final int parallelThreshold;
+  // Null unless set, in which case no time is spent reading the clock.
+  private volatile SchedulerMetrics metrics;
+
+  /** Creates a query that uses the {@code DAY_ARRAY} engine. */
+  public FindMeetingQuery() {
+    this(Engine.DAY_ARRAY);
+  }
+
+  /** Creates a query that finds meeting times with the given engine. */
+  public FindMeetingQuery(Engine engine) {
+    this(engine, new AttendeeDictionary());
+  }
+
+  /**
+   * Creates a query that finds meeting times with the given engine, and compares attendees using
+   * ids from {@code dictionary}. Events remember their attendee ids for the last dictionary they
+   * were used with, so queries over the same calendar should share one dictionary.
+   */
+  public FindMeetingQuery(Engine engine, AttendeeDictionary dictionary) {
+    this(engine, dictionary, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Same as {@code FindMeetingQuery(engine, dictionary)}, but the {@code PARALLEL_SWEEP_LINE}
+   * engine runs on {@code pool}, which sets how many threads a single query may use.
+   */
+  public FindMeetingQuery(Engine engine, AttendeeDictionary dictionary, ForkJoinPool pool) {
+    this(engine, dictionary, pool, PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Same as {@code FindMeetingQuery(engine, dictionary, pool)}, but calendars with at least {@code
+   * parallelThreshold} events are split up. Lets tests run small calendars through the parallel
+   * path.
+   */
+  FindMeetingQuery(
+      Engine engine, AttendeeDictionary dictionary, ForkJoinPool pool, int parallelThreshold) {
+    if (engine == null) {
+      throw new IllegalArgumentException("engine cannot be null");
+    }
+
+    if (dictionary == null) {
+      throw new IllegalArgumentException("dictionary cannot be null");
+    }
+
+    if (pool == null) {
+      throw new IllegalArgumentException("pool cannot be null");
+    }
+
+    this.engine = engine;
+    this.dictionary = dictionary;
+    this.pool = pool;
+    this.parallelThreshold = Math.max(parallelThreshold, 1);
+  }
+
+  /**
+   * Records how long each query and each of its phases takes, and how many events and candidate
+   * times it goes through, in {@code metrics}. Pass null to stop recording.
+   */
+  public void setMetrics(SchedulerMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /** Returns the metrics queries are recorded in, or null if they are not recorded. */
+  public SchedulerMetrics getMetrics() {
+    return metrics;
+  }
+
   /**
    * Given a list of events and a meeting request, finds all possible time slots for the meeting
    * that would satisfy each attendees schedule. If there are optional attendees, displays the time
    * slots that allows all mandatory and the largest amount of optional to attend.
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    if (engine != Engine.DAY_ARRAY) {
+      return query(events, request, TimeRange.WHOLE_DAY, 1, Integer.MAX_VALUE);
+    }
+
+    long started = startTiming();
+    if (request.getOptionalAttendees().isEmpty()) {
+      // Without optional attendees each minute is either free or not, so a bitmap of the busy
+      // minutes is enough.
+      PossibleTimes possibleTimes = new PossibleTimes(Integer.MAX_VALUE, 0);
+      addFreeTimes(getBusyMinutes(events, request), request.getDuration(), 1, possibleTimes);
+      endQuery(started, possibleTimes.getCandidateCount());
+      return possibleTimes.getOptimalTimes();
+    }
+
     // Finds all times that work for all mandatory attendees, paired with how many
     // optional attendees can attend. The list is sorted by maximum amount of
     // optional attendees that can attend.
     List<Pair> possibleTimes = getPossibleTimes(events, request);
+    endQuery(started, possibleTimes.size());
+
+    return getOptimalTimes(possibleTimes);
+  }
+
+  /**
+   * Same as {@code query}, but returns at most the first {@code limit} of the time slots. This
+   * always uses the sweep over event boundaries. Every event is still checked and the boundaries of
+   * the conflicting ones sorted, so this costs about as much as {@code query} on a large calendar.
+   * Only the final walk over the segments of the day stops early, once no later slot could be part
+   * of the answer, such as once {@code limit} slots that every optional attendee can attend have
+   * been found.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events, MeetingRequest request, int limit) {
+    return query(events, request, TimeRange.WHOLE_DAY, 1, limit);
+  }
+
+  /**
+   * Same as {@code query}, but searches {@code window} instead of a single day. The window can span
+   * many days, with times counted in minutes from the start of the first day. This always uses the
+   * sweep over event boundaries, so its cost depends on the number of events and not on how long
+   * the window is.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events, MeetingRequest request, TimeRange window) {
+    return query(events, request, window, 1);
+  }
+
+  /**
+   * Same as {@code query(events, request, window)}, but only returns time slots that start on a
+   * multiple of {@code granularity} minutes, such as 5 or 15. Slots that no longer fit the meeting
+   * once their start is moved forward are left out.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events, MeetingRequest request, TimeRange window, int granularity) {
+    return query(events, request, window, granularity, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@code query(events, request, window, granularity)}, but returns at most the first
+   * {@code limit} of the time slots. For example, a limit of one over the next two weeks finds the
+   * first slot that works. As with {@code query(events, request, limit)}, only the walk over the
+   * segments stops early, not the check of each event or the sort of their boundaries.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events,
+      MeetingRequest request,
+      TimeRange window,
+      int granularity,
+      int limit) {
+    checkSearch(window, granularity, limit);
+
+    long started = startTiming();
+    PossibleTimes possibleTimes = new PossibleTimes(limit, request.getOptionalAttendees().size());
+    long[] boundaries = getSortedBoundaries(events, request, window.start(), window.end());
+    addPossibleTimesBySweep(boundaries, request, window, granularity, possibleTimes);
+    endQuery(started, possibleTimes.getCandidateCount());
+
+    return possibleTimes.getOptimalTimes();
+  }
+
+  /**
+   * Same as {@code query(events, request, window, granularity, limit)}, but reads the columns of
+   * {@code store} directly instead of making an {@code Event} for each of its events.
+   */
+  public Collection<TimeRange> query(
+      EventStore store, MeetingRequest request, TimeRange window, int granularity, int limit) {
+    checkSearch(window, granularity, limit);
+
+    long started = startTiming();
+    PossibleTimes possibleTimes = new PossibleTimes(limit, request.getOptionalAttendees().size());
+    long[] boundaries = getSortedBoundaries(store, request, window.start(), window.end());
+    addPossibleTimesBySweep(boundaries, request, window, granularity, possibleTimes);
+    endQuery(started, possibleTimes.getCandidateCount());
+
+    return possibleTimes.getOptimalTimes();
+  }
+
+  /**
+   * Same as {@code query(events, request, window)}, but an attendee with working hours in {@code
+   * workingHours} is also busy outside of them. The hours outside of work are added to the same
+   * sweep as the events, so a team spread over many time zones is searched with a single query.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events,
+      MeetingRequest request,
+      TimeRange window,
+      Map<String, WorkingHours> workingHours) {
+    checkSearch(window, 1, 1);
+    if (workingHours == null) {
+      throw new IllegalArgumentException("workingHours cannot be null");
+    }
+
+    long started = startTiming();
+    PossibleTimes possibleTimes =
+        new PossibleTimes(Integer.MAX_VALUE, request.getOptionalAttendees().size());
+    long[] boundaries =
+        getSortedBoundaries(events, request, window.start(), window.end(), workingHours);
+    addPossibleTimesBySweep(boundaries, request, window, 1, possibleTimes);
+    endQuery(started, possibleTimes.getCandidateCount());
+
+    return possibleTimes.getOptimalTimes();
+  }
 
+  /**
+   * Same as {@code query(events, request)}, but reads the merged busy times that {@code calendar}
+   * keeps for each attendee instead of going through their events. This always uses the sweep over
+   * busy times. An optional attendee with several events at once is only counted once, so the
+   * answer can differ from {@code query(events, request)} when an optional attendee is double
+   * booked.
+   */
+  public Collection<TimeRange> query(CalendarIndex calendar, MeetingRequest request) {
+    return query(calendar, request, TimeRange.WHOLE_DAY, 1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@code query(calendar, request)}, but searches {@code window}, only returns time slots
+   * that start on a multiple of {@code granularity} minutes, and returns at most {@code limit} of
+   * them.
+   */
+  public Collection<TimeRange> query(
+      CalendarIndex calendar,
+      MeetingRequest request,
+      TimeRange window,
+      int granularity,
+      int limit) {
+    checkSearch(window, granularity, limit);
+
+    long started = startTiming();
+    PossibleTimes possibleTimes = new PossibleTimes(limit, request.getOptionalAttendees().size());
+    if (request.getOptionalAttendees().isEmpty() && window.equals(TimeRange.WHOLE_DAY)) {
+      // The calendar keeps a bitmap of each attendee's busy minutes of the day, so combining the
+      // mandatory attendees only takes a few dozen words.
+      long[] busyMinutes = calendar.getBusyMinutes(request.getAttendees());
+      endPhase(Phase.DAY_ARRAY, started);
+      addFreeTimes(busyMinutes, request.getDuration(), granularity, possibleTimes);
+    } else {
+      long[] boundaries = getSortedBoundaries(calendar, request, window);
+      addPossibleTimesBySweep(boundaries, request, window, granularity, possibleTimes);
+    }
+    endQuery(started, possibleTimes.getCandidateCount());
+
+    return possibleTimes.getOptimalTimes();
+  }
+
+  /**
+   * Same as {@code query(calendar, request)}, but for any source of busy times, so that callers can
+   * serve requests from a {@code CalendarIndex} or a {@code CalendarSnapshot} alike.
+   */
+  public Collection<TimeRange> query(BusyTimeSource calendar, MeetingRequest request) {
+    return query(calendar, request, TimeRange.WHOLE_DAY, 1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@code query(calendar, request, window, granularity, limit)} for any source of busy
+   * times. A {@code CalendarIndex} is still answered from its busy-minute bitmaps where it can be.
+   */
+  public Collection<TimeRange> query(
+      BusyTimeSource calendar,
+      MeetingRequest request,
+      TimeRange window,
+      int granularity,
+      int limit) {
+    if (calendar instanceof CalendarIndex) {
+      return query((CalendarIndex) calendar, request, window, granularity, limit);
+    }
+    checkSearch(window, granularity, limit);
+
+    long started = startTiming();
+    PossibleTimes possibleTimes = new PossibleTimes(limit, request.getOptionalAttendees().size());
+    long[] boundaries = getSortedBoundaries(calendar, request, window);
+    addPossibleTimesBySweep(boundaries, request, window, granularity, possibleTimes);
+    endQuery(started, possibleTimes.getCandidateCount());
+
+    return possibleTimes.getOptimalTimes();
+  }
+
+  /**
+   * Same as {@code query(calendar, request)}, but reads the busy times of each attendee straight
+   * from the memory-mapped {@code snapshot}.
+   */
+  public Collection<TimeRange> query(CalendarSnapshot snapshot, MeetingRequest request) {
+    return query(snapshot, request, TimeRange.WHOLE_DAY, 1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@code query(snapshot, request)}, but searches {@code window}, only returns time slots
+   * that start on a multiple of {@code granularity} minutes, and returns at most {@code limit} of
+   * them.
+   */
+  public Collection<TimeRange> query(
+      CalendarSnapshot snapshot,
+      MeetingRequest request,
+      TimeRange window,
+      int granularity,
+      int limit) {
+    return query((BusyTimeSource) snapshot, request, window, granularity, limit);
+  }
+
+  /**
+   * Returns the {@code k} best times for the meeting in {@code window} as scored by {@code scorer},
+   * best first. Unlike {@code query}, every possible time the sweep finds is a candidate, not only
+   * the ones that allow the most optional attendees, so the scorer can trade optional attendees
+   * against other preferences. Each request can be ranked with its own scorer.
+   */
+  public List<TimeRange> rank(
+      Collection<Event> events,
+      MeetingRequest request,
+      TimeRange window,
+      int granularity,
+      SlotScorer scorer,
+      int k) {
+    checkSearch(window, granularity, k);
+    if (scorer == null) {
+      throw new IllegalArgumentException("scorer cannot be null");
+    }
+
+    long started = startTiming();
+    RankedTimes rankedTimes = new RankedTimes(k);
+    long[] boundaries = getSortedBoundaries(events, request, window.start(), window.end());
+    addPossibleTimesBySweep(boundaries, request, window, granularity, rankedTimes);
+    List<TimeRange> bestTimes = rankedTimes.getBestTimes(scorer, request.getDuration());
+    endQuery(started, rankedTimes.getCandidateCount());
+
+    return bestTimes;
+  }
+
+  private static void checkSearch(TimeRange window, int granularity, int limit) {
+    if (window == null) {
+      throw new IllegalArgumentException("window cannot be null");
+    }
+
+    if (granularity < 1) {
+      throw new IllegalArgumentException("granularity must be at least one minute");
+    }
+
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be at least one");
+    }
+  }
+
+  /** Returns the time a query or phase starts at, or {@code NOT_TIMED} if it is not recorded. */
+  private long startTiming() {
+    return (metrics == null) ? NOT_TIMED : System.nanoTime();
+  }
+
+  /**
+   * Records that {@code phase} ran from {@code started} until now, and returns now so that the
+   * next phase can start from it. A phase that was not timed is not recorded, and the next phase
+   * is timed only if metrics have been set since.
+   */
+  private long endPhase(Phase phase, long started) {
+    SchedulerMetrics metrics = this.metrics;
+    if (metrics == null || started == NOT_TIMED) {
+      return startTiming();
+    }
+    long now = System.nanoTime();
+    metrics.recordPhase(phase, now - started);
+    return now;
+  }
+
+  /** Records that a query looked at {@code scanned} events, of which {@code relevant} conflict. */
+  private void countEvents(int scanned, int relevant) {
+    SchedulerMetrics metrics = this.metrics;
+    if (metrics != null) {
+      metrics.recordEvents(scanned, relevant);
+    }
+  }
+
+  /** Records a query that ran from {@code started} until now and found {@code candidates}. */
+  private void endQuery(long started, int candidates) {
+    SchedulerMetrics metrics = this.metrics;
+    if (metrics != null && started != NOT_TIMED) {
+      metrics.recordQuery(System.nanoTime() - started, candidates);
+    }
+  }
+
+  /**
+   * Given possible times sorted by how many optional attendees can attend, returns the times that
+   * allow the most optional attendees to attend.
+   */
+  private List<TimeRange> getOptimalTimes(List<Pair> possibleTimes) {
     List<TimeRange> optimalTimes = new ArrayList<TimeRange>();
 
     // Finds the events that allow for the most optional attendees to attend.
@@ -60,6 +461,7 @@ public final class FindMeetingQuery {
    */
   private List<Pair> getPossibleTimes(Collection<Event> events, MeetingRequest request) {
     int[] dayArr = getDayArray(events, request);
+    long scanStarted = startTiming();
 
     List<Pair> possibleTimes = new ArrayList<Pair>();
 
@@ -79,7 +481,9 @@ public final class FindMeetingQuery {
       int optionalAttendeesAvailable = request.getOptionalAttendees().size() - dayArr[curTime];
 
       if (dayArr[curTime] == -1) {
-        // If there are conflicts for mandatory attendees, skips over the minute.
+        // If there are conflicts for mandatory attendees, skips over the minute. A time slot before
+        // the conflict cannot be paired with one after it.
+        possibleIgnoreOptional = false;
       } else if (curTime == MINS_IN_DAY - 1) {
         // If it is the last minute of the day and current time range has a valid duration, adds it
         // to list of possible times.
@@ -131,11 +535,483 @@ public final class FindMeetingQuery {
 
     // Sorts the possible times by amount of optional attendees that can attend, with
     // the time ranges that allow the most optional attendees to attend to go to the front.
+    long sortStarted = endPhase(Phase.SCAN, scanStarted);
     Collections.sort(possibleTimes, Pair.ORDER_BY_ATTENDEES);
+    endPhase(Phase.SORT, sortStarted);
 
     return possibleTimes;
   }
 
+  /**
+   * Finds the same possible times as {@code getPossibleTimes}, but builds them from the sorted
+   * {@code boundaries} of the conflicts instead of from a minute-by-minute day array.
+   * Runs of minutes with the same value in the day array become segments, and each segment is
+   * handled the way {@code getPossibleTimes} handles the last minute of a run. The search covers
+   * {@code window} rather than a single day, and each time's start is moved up to a multiple of
+   * {@code granularity}. Times are added to {@code possibleTimes} in order of start, and the walk
+   * over the segments stops once {@code possibleTimes} has its answer. The segments themselves are
+   * always built from every boundary.
+   */
+  private void addPossibleTimesBySweep(
+      long[] boundaries,
+      MeetingRequest request,
+      TimeRange window,
+      int granularity,
+      TimeCollector possibleTimes) {
+    long started = startTiming();
+    int windowStart = window.start();
+    int windowEnd = window.end();
+
+    // Sweeps over the boundaries, starting a new segment whenever the day array value would change.
+    // There is at most one segment per distinct boundary time, plus one for the window's start.
+    int[] segmentStarts = new int[boundaries.length + 1];
+    int[] segmentValues = new int[boundaries.length + 1];
+    int numSegments = 0;
+
+    int mandatoryConflicts = 0;
+    int optionalConflicts = 0;
+    int nextBoundary = 0;
+    int curTime = windowStart;
+    while (curTime < windowEnd) {
+      while (nextBoundary < boundaries.length
+          && boundaryTime(boundaries[nextBoundary]) == curTime) {
+        int change = boundaryChange(boundaries[nextBoundary]);
+        if (isMandatoryChange(change)) {
+          mandatoryConflicts += change;
+        } else {
+          optionalConflicts += change / 2;
+        }
+        nextBoundary++;
+      }
+
+      int value = (mandatoryConflicts > 0) ? -1 : optionalConflicts;
+      if (numSegments == 0 || segmentValues[numSegments - 1] != value) {
+        segmentStarts[numSegments] = curTime;
+        segmentValues[numSegments] = value;
+        numSegments++;
+      }
+
+      curTime =
+          (nextBoundary < boundaries.length) ? boundaryTime(boundaries[nextBoundary]) : windowEnd;
+    }
+
+    long requestDuration = request.getDuration();
+    int numOptionalAttendees = request.getOptionalAttendees().size();
+
+    // Same meaning as in getPossibleTimes, except lastDuration holds the whole segment's length.
+    boolean possibleIgnoreOptional = false;
+    int lastDuration = 0;
+
+    for (int i = 0; i < numSegments && !possibleTimes.isComplete(); i++) {
+      if (segmentValues[i] == -1) {
+        // If there are conflicts for mandatory attendees, skips over the segment.
+        possibleIgnoreOptional = false;
+        continue;
+      }
+
+      int segmentStart = segmentStarts[i];
+      int segmentEnd = (i + 1 < numSegments) ? segmentStarts[i + 1] : windowEnd;
+      int segmentDuration = segmentEnd - segmentStart;
+      int optionalAttendeesAvailable = numOptionalAttendees - segmentValues[i];
+
+      if (segmentEnd == windowEnd) {
+        // The last segment of the window is only added if it is longer than a single minute,
+        // matching the check against the previous minute in getPossibleTimes.
+        if (segmentDuration > 1 && segmentDuration >= requestDuration) {
+          addPossibleTime(
+              possibleTimes,
+              segmentStart,
+              segmentEnd,
+              optionalAttendeesAvailable,
+              requestDuration,
+              granularity);
+        }
+      } else if (segmentDuration >= requestDuration) {
+        addPossibleTime(
+            possibleTimes,
+            segmentStart,
+            segmentEnd,
+            optionalAttendeesAvailable,
+            requestDuration,
+            granularity);
+        possibleIgnoreOptional = false;
+      } else if (possibleIgnoreOptional) {
+        int totalDuration = segmentDuration + lastDuration;
+        if (totalDuration >= requestDuration) {
+          addPossibleTime(
+              possibleTimes,
+              segmentEnd - totalDuration,
+              segmentEnd,
+              optionalAttendeesAvailable,
+              requestDuration,
+              granularity);
+        }
+        possibleIgnoreOptional = false;
+      } else if (optionalAttendeesAvailable == 0
+          || numOptionalAttendees - segmentValues[i + 1] == 0) {
+        possibleIgnoreOptional = true;
+        lastDuration = segmentDuration;
+      }
+    }
+    endPhase(Phase.SCAN, started);
+  }
+
+  /**
+   * Adds the runs of clear minutes in {@code busyMinutes} that fit the meeting, for a request with
+   * no optional attendees. Each run is found a word at a time. Gives the same times as the sweep
+   * over a whole day.
+   */
+  private void addFreeTimes(
+      long[] busyMinutes, long requestDuration, int granularity, TimeCollector possibleTimes) {
+    long started = startTiming();
+    int start = MinuteBitmap.nextClearBit(busyMinutes, 0);
+    while (start < MINS_IN_DAY && !possibleTimes.isComplete()) {
+      int end = MinuteBitmap.nextSetBit(busyMinutes, start);
+      // A free time at the end of the day has to be longer than a single minute, matching the
+      // check against the previous minute in getPossibleTimes.
+      if (end < MINS_IN_DAY || end - start > 1) {
+        addPossibleTime(possibleTimes, start, end, 0, requestDuration, granularity);
+      }
+      start = MinuteBitmap.nextClearBit(busyMinutes, end);
+    }
+    endPhase(Phase.SCAN, started);
+  }
+
+  /**
+   * Gives an id in {@code dictionary} to every attendee of {@code events} if {@code request} names
+   * someone without one. Request masks leave out names the dictionary has not seen, so without this
+   * the first query over new events could miss an attendee's conflicts. The events are only gone
+   * through when a name is unknown, and their masks are kept, so this costs little after that.
+   */
+  static void encodeAttendees(
+      Collection<Event> events, MeetingRequest request, AttendeeDictionary dictionary) {
+    if (dictionary.knowsAll(request.getAttendees())
+        && dictionary.knowsAll(request.getOptionalAttendees())) {
+      return;
+    }
+    for (Event event : events) {
+      event.getAttendeeMask(dictionary);
+    }
+  }
+
+  /** Returns a bitmap of the minutes of the day when a mandatory attendee has an event. */
+  private long[] getBusyMinutes(Collection<Event> events, MeetingRequest request) {
+    long started = startTiming();
+    encodeAttendees(events, request, dictionary);
+    long[] mandatoryMask = request.getAttendeeMask(dictionary);
+    long[] busyMinutes = new long[MinuteBitmap.WORDS];
+    int numConflicts = 0;
+    for (Event event : events) {
+      if (AttendeeDictionary.intersects(event.getAttendeeMask(dictionary), mandatoryMask)) {
+        TimeRange range = event.getWhen();
+        MinuteBitmap.set(
+            busyMinutes, Math.max(range.start(), 0), Math.min(range.end(), MINS_IN_DAY));
+        numConflicts++;
+      }
+    }
+    // Finding the conflicts and setting their minutes are one pass, so both count as the day array.
+    endPhase(Phase.DAY_ARRAY, started);
+    countEvents(events.size(), numConflicts);
+    return busyMinutes;
+  }
+
+  /** Returns the sorted packed boundaries of the events that conflict with the meeting request. */
+  private long[] getSortedBoundaries(
+      Collection<Event> events, MeetingRequest request, int windowStart, int windowEnd) {
+    return getSortedBoundaries(
+        events, request, windowStart, windowEnd, Collections.<String, WorkingHours>emptyMap());
+  }
+
+  /**
+   * Returns the sorted packed boundaries of the events that conflict with the meeting request, and
+   * of the times outside of the working hours in {@code workingHours} of its attendees.
+   */
+  private long[] getSortedBoundaries(
+      Collection<Event> events,
+      MeetingRequest request,
+      int windowStart,
+      int windowEnd,
+      Map<String, WorkingHours> workingHours) {
+    long started = startTiming();
+    encodeAttendees(events, request, dictionary);
+    long[] boundaries;
+    if (engine == Engine.PARALLEL_SWEEP_LINE && events.size() >= parallelThreshold) {
+      Event[] eventArray = events.toArray(new Event[0]);
+      // Makes a few parts per thread so that threads that finish early can take more work.
+      int leafSize = Math.max(1, eventArray.length / (4 * pool.getParallelism()));
+      boundaries =
+          pool.invoke(
+              new BoundaryTask(
+                  eventArray, 0, eventArray.length, leafSize, request, windowStart, windowEnd));
+      int numConflicts = boundaries.length / 2;
+      boundaries = addOffHours(boundaries, events, request, windowStart, windowEnd, workingHours);
+      if (boundaries.length > 2 * numConflicts) {
+        Arrays.sort(boundaries, 2 * numConflicts, boundaries.length);
+        boundaries = mergeSorted(boundaries, 2 * numConflicts);
+      }
+      // The parts are found and sorted together, so the whole of it counts as finding conflicts.
+      endPhase(Phase.CONFLICTS, started);
+      countEvents(events.size(), numConflicts);
+    } else {
+      boundaries = getBoundaries(events, request, windowStart, windowEnd);
+      int numConflicts = boundaries.length / 2;
+      boundaries = addOffHours(boundaries, events, request, windowStart, windowEnd, workingHours);
+      long sortStarted = endPhase(Phase.CONFLICTS, started);
+      Arrays.sort(boundaries);
+      endPhase(Phase.SORT, sortStarted);
+      countEvents(events.size(), numConflicts);
+    }
+    return boundaries;
+  }
+
+  /**
+   * Returns the sorted packed boundaries of the busy times of the meeting request's attendees in
+   * {@code window}. A mandatory attendee's busy time is a mandatory conflict, and an optional
+   * attendee's busy time is a single optional conflict.
+   */
+  private long[] getSortedBoundaries(
+      BusyTimeSource calendar, MeetingRequest request, TimeRange window) {
+    long started = startTiming();
+    long[] boundaries = new long[16];
+    int numBoundaries = 0;
+    for (int pass = 0; pass < 2; pass++) {
+      Collection<String> attendees =
+          (pass == 0) ? request.getAttendees() : request.getOptionalAttendees();
+      int change = (pass == 0) ? MANDATORY_CONFLICT : 2;
+
+      for (String attendee : attendees) {
+        for (TimeRange busyTime : calendar.getBusyTimes(attendee, window)) {
+          if (numBoundaries + 2 > boundaries.length) {
+            boundaries = Arrays.copyOf(boundaries, 2 * boundaries.length);
+          }
+          boundaries[numBoundaries++] = packBoundary(busyTime.start(), change);
+          boundaries[numBoundaries++] = packBoundary(busyTime.end(), -change);
+        }
+      }
+    }
+
+    boundaries = Arrays.copyOf(boundaries, numBoundaries);
+    long sortStarted = endPhase(Phase.CONFLICTS, started);
+    Arrays.sort(boundaries);
+    endPhase(Phase.SORT, sortStarted);
+    // Only the attendees' own busy times are read, so each one is relevant.
+    countEvents(numBoundaries / 2, numBoundaries / 2);
+    return boundaries;
+  }
+
+  /**
+   * Same as {@code getSortedBoundaries(events, request, windowStart, windowEnd)}, but for the
+   * events in {@code store}, which are read a column at a time.
+   */
+  private long[] getSortedBoundaries(
+      EventStore store, MeetingRequest request, int windowStart, int windowEnd) {
+    long started = startTiming();
+    long[] mandatoryMask = store.maskOf(request.getAttendees());
+    long[] optionalMask = store.maskOf(request.getOptionalAttendees());
+
+    long[] boundaries = new long[16];
+    int numBoundaries = 0;
+    for (int i = 0; i < store.size(); i++) {
+      int rangeStart = Math.max(store.start(i), windowStart);
+      int rangeEnd = Math.min(store.end(i), windowEnd);
+      if (rangeStart >= rangeEnd) {
+        continue;
+      }
+
+      int change = 0;
+      for (int j = store.attendeesFrom(i); j < store.attendeesTo(i); j++) {
+        int id = store.attendeeId(j);
+        if ((mandatoryMask[id >> 6] & (1L << id)) != 0) {
+          change = MANDATORY_CONFLICT;
+          break;
+        }
+        if ((optionalMask[id >> 6] & (1L << id)) != 0) {
+          change += 2;
+        }
+      }
+      if (change == 0) {
+        continue;
+      }
+
+      if (numBoundaries + 2 > boundaries.length) {
+        boundaries = Arrays.copyOf(boundaries, 2 * boundaries.length);
+      }
+      boundaries[numBoundaries++] = packBoundary(rangeStart, change);
+      boundaries[numBoundaries++] = packBoundary(rangeEnd, -change);
+    }
+
+    boundaries = Arrays.copyOf(boundaries, numBoundaries);
+    long sortStarted = endPhase(Phase.CONFLICTS, started);
+    Arrays.sort(boundaries);
+    endPhase(Phase.SORT, sortStarted);
+    countEvents(store.size(), numBoundaries / 2);
+    return boundaries;
+  }
+
+  /**
+   * Returns {@code boundaries} followed by the boundaries of the times in the window outside of the
+   * working hours of the meeting request's attendees. Time outside a mandatory attendee's working
+   * hours is a mandatory conflict, and time outside an optional attendee's is a single optional
+   * conflict. An attendee's own events are taken out of their off hours first, so that they are not
+   * counted twice for the same minute.
+   */
+  private static long[] addOffHours(
+      long[] boundaries,
+      Collection<Event> events,
+      MeetingRequest request,
+      int windowStart,
+      int windowEnd,
+      Map<String, WorkingHours> workingHours) {
+    if (workingHours.isEmpty()) {
+      return boundaries;
+    }
+
+    TimeRange window = TimeRange.fromStartEnd(windowStart, windowEnd, false);
+    int numBoundaries = boundaries.length;
+    for (int pass = 0; pass < 2; pass++) {
+      Collection<String> attendees =
+          (pass == 0) ? request.getAttendees() : request.getOptionalAttendees();
+      int change = (pass == 0) ? MANDATORY_CONFLICT : 2;
+
+      for (String attendee : attendees) {
+        WorkingHours hours = workingHours.get(attendee);
+        if (hours == null) {
+          continue;
+        }
+        BusyTimeline busyTimeline = new BusyTimeline();
+        for (Event event : events) {
+          if (event.getAttendees().contains(attendee)) {
+            busyTimeline.add(event.getWhen());
+          }
+        }
+
+        for (TimeRange offHours : hours.getOffHours(window)) {
+          int from = offHours.start();
+          List<TimeRange> busyTimes = busyTimeline.getBusyTimes(offHours);
+          for (int i = 0; i <= busyTimes.size(); i++) {
+            int to = (i < busyTimes.size()) ? busyTimes.get(i).start() : offHours.end();
+            if (from < to) {
+              if (numBoundaries + 2 > boundaries.length) {
+                boundaries = Arrays.copyOf(boundaries, Math.max(16, 2 * boundaries.length));
+              }
+              boundaries[numBoundaries++] = packBoundary(from, change);
+              boundaries[numBoundaries++] = packBoundary(to, -change);
+            }
+            if (i < busyTimes.size()) {
+              from = busyTimes.get(i).end();
+            }
+          }
+        }
+      }
+    }
+    return Arrays.copyOf(boundaries, numBoundaries);
+  }
+
+  /**
+   * Returns {@code boundaries} with its two sorted parts, before and from {@code split}, merged in
+   * one pass instead of sorted again.
+   */
+  private static long[] mergeSorted(long[] boundaries, int split) {
+    long[] merged = new long[boundaries.length];
+    int i = 0;
+    int j = split;
+    for (int k = 0; k < merged.length; k++) {
+      if (j == boundaries.length || (i < split && boundaries[i] <= boundaries[j])) {
+        merged[k] = boundaries[i++];
+      } else {
+        merged[k] = boundaries[j++];
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Returns the packed boundaries of the events that conflict with the meeting request, cut down to
+   * fit in the window. Each conflicting event adds its conflicts where it starts and removes them
+   * where it ends. The boundaries are not sorted.
+   */
+  private long[] getBoundaries(
+      Collection<Event> events, MeetingRequest request, int windowStart, int windowEnd) {
+    long[] mandatoryMask = request.getAttendeeMask(dictionary);
+    long[] optionalMask = request.getOptionalAttendeeMask(dictionary);
+
+    long[] boundaries = new long[16];
+    int numBoundaries = 0;
+    for (Event event : events) {
+      TimeRange range = event.getWhen();
+      int rangeStart = Math.max(range.start(), windowStart);
+      int rangeEnd = Math.min(range.end(), windowEnd);
+      if (rangeStart >= rangeEnd) {
+        continue;
+      }
+
+      long[] eventMask = event.getAttendeeMask(dictionary);
+      int change;
+      if (AttendeeDictionary.intersects(eventMask, mandatoryMask)) {
+        change = MANDATORY_CONFLICT;
+      } else {
+        int optionalConflicts = AttendeeDictionary.countShared(eventMask, optionalMask);
+        if (optionalConflicts == 0) {
+          continue;
+        }
+        change = 2 * optionalConflicts;
+      }
+
+      if (numBoundaries + 2 > boundaries.length) {
+        boundaries = Arrays.copyOf(boundaries, 2 * boundaries.length);
+      }
+      boundaries[numBoundaries++] = packBoundary(rangeStart, change);
+      boundaries[numBoundaries++] = packBoundary(rangeEnd, -change);
+    }
+
+    return Arrays.copyOf(boundaries, numBoundaries);
+  }
+
+  /**
+   * Packs a boundary into a long, with its time in the high 32 bits and the change it makes to the
+   * conflicts in the low 32 bits. Sorting packed boundaries sorts them by time.
+   */
+  private static long packBoundary(int time, int change) {
+    return ((long) time << 32) | (change & 0xFFFFFFFFL);
+  }
+
+  /** Returns the time of a packed boundary. */
+  private static int boundaryTime(long boundary) {
+    return (int) (boundary >> 32);
+  }
+
+  /** Returns the change a packed boundary makes to the conflicts. */
+  private static int boundaryChange(long boundary) {
+    return (int) boundary;
+  }
+
+  /**
+   * Returns whether a boundary's change is to the mandatory conflicts. Mandatory changes are odd
+   * (plus or minus {@code MANDATORY_CONFLICT}), and optional changes are twice the number of
+   * optional attendees, so they are always even.
+   */
+  private static boolean isMandatoryChange(int change) {
+    return (change & 1) != 0;
+  }
+
+  /**
+   * Adds the time from {@code start} to {@code end} to {@code possibleTimes}, with its start moved
+   * up to the next multiple of {@code granularity}. The time is left out if the meeting no longer
+   * fits once its start has moved.
+   */
+  private static void addPossibleTime(
+      TimeCollector possibleTimes,
+      int start,
+      int end,
+      int optionalAttendeesAvailable,
+      long requestDuration,
+      int granularity) {
+    int alignedStart = start + Math.floorMod(-start, granularity);
+    if (end - alignedStart >= requestDuration && alignedStart < end) {
+      possibleTimes.add(alignedStart, end, optionalAttendeesAvailable);
+    }
+  }
+
   /**
    * Returns an array representation of a day, with each index representing a minute, and the value
    * at each meeting representing how many optional attendees have a conflict at that time. If a
@@ -143,7 +1019,10 @@ public final class FindMeetingQuery {
    * reflect the number of optional attendees that have conflict.
    */
   private int[] getDayArray(Collection<Event> events, MeetingRequest request) {
+    long started = startTiming();
     List<TimeWithAttendees> eventTimes = getConflictingEvents(events, request);
+    long fillStarted = endPhase(Phase.CONFLICTS, started);
+    countEvents(events.size(), eventTimes.size());
 
     int[] dayArr = new int[MINS_IN_DAY];
 
@@ -158,13 +1037,18 @@ public final class FindMeetingQuery {
         numToAdd = eventTime.numOfOptionalConflicts;
       }
 
-      int rangeStart = eventTime.range.start();
-      int rangeEnd = eventTime.range.end();
+      int rangeStart = Math.max(eventTime.range.start(), 0);
+      int rangeEnd = Math.min(eventTime.range.end(), MINS_IN_DAY);
       for (int i = rangeStart; i < rangeEnd; i++) {
-        dayArr[i] += (dayArr[i] < 0) ? 0 : numToAdd;
+        // A mandatory conflict makes the minute unusable no matter how many optional conflicts
+        // were counted before it.
+        if (dayArr[i] >= 0) {
+          dayArr[i] = (numToAdd < 0) ? -1 : dayArr[i] + numToAdd;
+        }
       }
     }
 
+    endPhase(Phase.DAY_ARRAY, fillStarted);
     return dayArr;
   }
 
@@ -176,25 +1060,28 @@ public final class FindMeetingQuery {
   private List<TimeWithAttendees> getConflictingEvents(
       Collection<Event> events, MeetingRequest request) {
     List<TimeWithAttendees> eventTimes = new ArrayList<TimeWithAttendees>();
+    encodeAttendees(events, request, dictionary);
+
+    // Attendees are compared as masks of ids, so checking an event is a few word-wide ANDs rather
+    // than a hash lookup per attendee.
+    long[] mandatoryMask = request.getAttendeeMask(dictionary);
+    long[] optionalMask = request.getOptionalAttendeeMask(dictionary);
 
     for (Event event : events) {
+      long[] eventMask = event.getAttendeeMask(dictionary);
+
       TimeWithAttendees timeWithAttendees = new TimeWithAttendees();
       timeWithAttendees.range = event.getWhen();
 
       // If the no mandatory attendees are at the current event, noMandatory conflicts is
       // set to true.
       timeWithAttendees.noMandatoryConlicts =
-          Collections.disjoint(event.getAttendees(), request.getAttendees());
-
-      Collection<String> optionalAttendees = request.getOptionalAttendees();
+          !AttendeeDictionary.intersects(eventMask, mandatoryMask);
 
       // numOfOptionalConflicts is set to the number of optional attendees
       // attending this event.
-      for (String attendee : optionalAttendees) {
-        if (event.getAttendees().contains(attendee)) {
-          timeWithAttendees.numOfOptionalConflicts++;
-        }
-      }
+      timeWithAttendees.numOfOptionalConflicts =
+          AttendeeDictionary.countShared(eventMask, optionalMask);
 
       // Adds to the conflicting event list if there are conflicts for either mandatory of
       // optional attendees.
@@ -212,7 +1099,75 @@ public final class FindMeetingQuery {
    */
   class TimeWithAttendees {
     public TimeRange range;
-    public Boolean noMandatoryConlicts;
+    public boolean noMandatoryConlicts;
     public int numOfOptionalConflicts;
   }
-}
\ No newline at end of file
+
+  /**
+   * Finds the sorted boundaries of a part of the calendar. Parts larger than {@code leafSize} are
+   * split in half, and the sorted boundaries of the two halves are merged.
+   */
+  private final class BoundaryTask extends RecursiveTask<long[]> {
+    private final Event[] events;
+    private final int from;
+    private final int to;
+    private final int leafSize;
+    private final MeetingRequest request;
+    private final int windowStart;
+    private final int windowEnd;
+
+    private BoundaryTask(
+        Event[] events,
+        int from,
+        int to,
+        int leafSize,
+        MeetingRequest request,
+        int windowStart,
+        int windowEnd) {
+      this.events = events;
+      this.from = from;
+      this.to = to;
+      this.leafSize = leafSize;
+      this.request = request;
+      this.windowStart = windowStart;
+      this.windowEnd = windowEnd;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (to - from <= leafSize) {
+        long[] boundaries =
+            getBoundaries(
+                Arrays.asList(events).subList(from, to), request, windowStart, windowEnd);
+        Arrays.sort(boundaries);
+        return boundaries;
+      }
+
+      int middle = (from + to) >>> 1;
+      BoundaryTask left =
+          new BoundaryTask(events, from, middle, leafSize, request, windowStart, windowEnd);
+      BoundaryTask right =
+          new BoundaryTask(events, middle, to, leafSize, request, windowStart, windowEnd);
+      right.fork();
+      long[] leftBoundaries = left.compute();
+      long[] rightBoundaries = right.join();
+
+      // Merges the two sorted halves.
+      long[] merged = new long[leftBoundaries.length + rightBoundaries.length];
+      int i = 0;
+      int j = 0;
+      int k = 0;
+      while (i < leftBoundaries.length && j < rightBoundaries.length) {
+        merged[k++] =
+            (rightBoundaries[j] < leftBoundaries[i]) ? rightBoundaries[j++] : leftBoundaries[i++];
+      }
+      while (i < leftBoundaries.length) {
+        merged[k++] = leftBoundaries[i++];
+      }
+      while (j < rightBoundaries.length) {
+        merged[k++] = rightBoundaries[j++];
+      }
+      return merged;
+    }
+  }
+}
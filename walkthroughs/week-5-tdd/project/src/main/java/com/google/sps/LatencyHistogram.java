@@ -0,0 +1,127 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Counts values, such as latencies in nanoseconds, in buckets that widen as the values grow, in
+ * the style of HdrHistogram. Each power of two is split into 8 buckets, so a value is known to
+ * within 12.5% however big it is, and every long fits in a few hundred counters. Recording a value
+ * is a few atomic adds with no lock, so the histogram can stay on in production. Safe to share
+ * between threads.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+  private static final LongBinaryOperator MAX =
+      new LongBinaryOperator() {
+        @Override
+        public long applyAsLong(long a, long b) {
+          return Math.max(a, b);
+        }
+      };
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(MAX, 0);
+
+  /** Counts {@code value}. Negative values are counted as zero. */
+  public void record(long value) {
+    value = Math.max(value, 0);
+    counts.incrementAndGet(bucketOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /** Returns how many values were counted. */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /** Returns the mean of the values counted, or 0 if there are none. */
+  public double getMean() {
+    long n = count.sum();
+    return (n == 0) ? 0 : sum.sum() / (double) n;
+  }
+
+  /** Returns the largest value counted, or 0 if there are none. */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns a value that {@code percentile} percent of the values counted are at or below, such as
+   * the median for 50. The value is the top of the bucket the percentile falls in, so it can be up
+   * to 12.5% too high, but never more than the largest value counted. Returns 0 if there are none.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+
+    // Reads the buckets once, so values counted meanwhile cannot push the total past the rank.
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Returns the bucket of {@code value}. Values below 8 get a bucket each, and each power of two
+   * above that is split into 8 buckets by the 3 bits after its leading one.
+   */
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /** Returns the largest value that falls in {@code bucket}. */
+  static long highestValueOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    int subBucket = bucket % SUB_BUCKETS;
+    long lowest = (long) (SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS);
+    return lowest + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+  }
+}
@@ -67,6 +67,22 @@ public final class MeetingRequest {
     }
   }
 
+  /**
+   * Returns the people who are required to attend this meeting as a mask of ids from {@code
+   * dictionary}. People the dictionary has not seen are left out, since they have no events.
+   */
+  public long[] getAttendeeMask(AttendeeDictionary dictionary) {
+    return dictionary.knownMaskOf(attendees);
+  }
+
+  /**
+   * Returns the people who are optional to attend this meeting as a mask of ids from {@code
+   * dictionary}. People the dictionary has not seen are left out, since they have no events.
+   */
+  public long[] getOptionalAttendeeMask(AttendeeDictionary dictionary) {
+    return dictionary.knownMaskOf(optional_attendees);
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
@@ -0,0 +1,109 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Helpers for a day stored as a bitmap of its 1440 minutes, with bit {@code m} of word {@code m /
+ * 64} standing for minute {@code m}. Bits past the end of the day are always clear. Runs of set or
+ * clear bits are found a word at a time with {@code Long.numberOfTrailingZeros} instead of one
+ * minute at a time.
+ */
+final class MinuteBitmap {
+  static final int MINUTES = 24 * 60;
+  static final int WORDS = (MINUTES + 63) >>> 6;
+
+  private MinuteBitmap() {}
+
+  /** Sets the bits of the minutes from {@code from} up to {@code to}. */
+  static void set(long[] bits, int from, int to) {
+    if (from >= to) {
+      return;
+    }
+
+    int first = from >>> 6;
+    int last = (to - 1) >>> 6;
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+    if (first == last) {
+      bits[first] |= firstMask & lastMask;
+      return;
+    }
+
+    bits[first] |= firstMask;
+    for (int i = first + 1; i < last; i++) {
+      bits[i] = -1L;
+    }
+    bits[last] |= lastMask;
+  }
+
+  /** Clears the bits of the minutes from {@code from} up to {@code to}. */
+  static void clear(long[] bits, int from, int to) {
+    if (from >= to) {
+      return;
+    }
+
+    int first = from >>> 6;
+    int last = (to - 1) >>> 6;
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+    if (first == last) {
+      bits[first] &= ~(firstMask & lastMask);
+      return;
+    }
+
+    bits[first] &= ~firstMask;
+    for (int i = first + 1; i < last; i++) {
+      bits[i] = 0;
+    }
+    bits[last] &= ~lastMask;
+  }
+
+  /** Returns the first set minute at or after {@code from}, or {@code MINUTES} if there is none. */
+  static int nextSetBit(long[] bits, int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+
+    int i = from >>> 6;
+    long word = bits[i] & (-1L << from);
+    while (word == 0) {
+      if (++i == WORDS) {
+        return MINUTES;
+      }
+      word = bits[i];
+    }
+    return (i << 6) + Long.numberOfTrailingZeros(word);
+  }
+
+  /**
+   * Returns the first clear minute at or after {@code from}, or {@code MINUTES} if every minute
+   * left in the day is set.
+   */
+  static int nextClearBit(long[] bits, int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+
+    int i = from >>> 6;
+    long word = ~bits[i] & (-1L << from);
+    while (word == 0) {
+      if (++i == WORDS) {
+        return MINUTES;
+      }
+      word = ~bits[i];
+    }
+    return Math.min((i << 6) + Long.numberOfTrailingZeros(word), MINUTES);
+  }
+}
@@ -0,0 +1,174 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact copy of a calendar with the same busy times. Duplicate events are collapsed, each
+ * attendee's overlapping and back-to-back events are merged into single busy times, and attendees
+ * who are busy at exactly the same time share one event. The events can be passed to {@code
+ * FindMeetingQuery} in place of the original calendar. Since an attendee's busy times never
+ * overlap afterwards, an optional attendee who was double booked is only counted once.
+ */
+public final class NormalizedCalendar {
+  /** The title given to each event of the normalized calendar. */
+  public static final String BUSY = "Busy";
+
+  private static final Comparator<Event> ORDER_BY_TIME =
+      new Comparator<Event>() {
+        @Override
+        public int compare(Event a, Event b) {
+          int byStart = TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen());
+          if (byStart != 0) {
+            return byStart;
+          }
+          return TimeRange.ORDER_BY_END.compare(a.getWhen(), b.getWhen());
+        }
+      };
+
+  private final List<Event> events;
+  private final int numInputEvents;
+  private final int numDuplicateEvents;
+  private final int numInputIntervals;
+  private final int numIntervals;
+
+  private NormalizedCalendar(
+      List<Event> events,
+      int numInputEvents,
+      int numDuplicateEvents,
+      int numInputIntervals,
+      int numIntervals) {
+    this.events = Collections.unmodifiableList(events);
+    this.numInputEvents = numInputEvents;
+    this.numDuplicateEvents = numDuplicateEvents;
+    this.numInputIntervals = numInputIntervals;
+    this.numIntervals = numIntervals;
+  }
+
+  /** Returns the normalized copy of {@code events}. */
+  public static NormalizedCalendar normalize(Collection<Event> events) {
+    Set<Event> distinctEvents = new LinkedHashSet<>(events);
+
+    // Collects each attendee's busy times, counting one interval per attendee of each event.
+    int numInputIntervals = 0;
+    Map<String, List<TimeRange>> busyTimesByAttendee = new HashMap<>();
+    for (Event event : events) {
+      numInputIntervals += event.getAttendees().size();
+    }
+    for (Event event : distinctEvents) {
+      if (event.getWhen().duration() <= 0) {
+        continue;
+      }
+
+      for (String attendee : event.getAttendees()) {
+        List<TimeRange> busyTimes = busyTimesByAttendee.get(attendee);
+        if (busyTimes == null) {
+          busyTimes = new ArrayList<>();
+          busyTimesByAttendee.put(attendee, busyTimes);
+        }
+        busyTimes.add(event.getWhen());
+      }
+    }
+
+    // Merges each attendee's busy times, then groups the attendees of each merged time.
+    int numIntervals = 0;
+    Map<TimeRange, Set<String>> attendeesByTime = new HashMap<>();
+    for (Map.Entry<String, List<TimeRange>> entry : busyTimesByAttendee.entrySet()) {
+      for (TimeRange busyTime : merge(entry.getValue())) {
+        Set<String> attendees = attendeesByTime.get(busyTime);
+        if (attendees == null) {
+          attendees = new HashSet<>();
+          attendeesByTime.put(busyTime, attendees);
+        }
+        attendees.add(entry.getKey());
+        numIntervals++;
+      }
+    }
+
+    List<Event> normalizedEvents = new ArrayList<>(attendeesByTime.size());
+    for (Map.Entry<TimeRange, Set<String>> entry : attendeesByTime.entrySet()) {
+      normalizedEvents.add(new Event(BUSY, entry.getKey(), entry.getValue()));
+    }
+    Collections.sort(normalizedEvents, ORDER_BY_TIME);
+
+    return new NormalizedCalendar(
+        normalizedEvents,
+        events.size(),
+        events.size() - distinctEvents.size(),
+        numInputIntervals,
+        numIntervals);
+  }
+
+  /** Returns the busy times in {@code busyTimes} with overlapping and touching times joined. */
+  private static List<TimeRange> merge(List<TimeRange> busyTimes) {
+    Collections.sort(busyTimes, TimeRange.ORDER_BY_START);
+
+    List<TimeRange> merged = new ArrayList<>();
+    int start = busyTimes.get(0).start();
+    int end = busyTimes.get(0).end();
+    for (TimeRange busyTime : busyTimes) {
+      if (busyTime.start() > end) {
+        merged.add(TimeRange.fromStartEnd(start, end, false));
+        start = busyTime.start();
+      }
+      end = Math.max(end, busyTime.end());
+    }
+    merged.add(TimeRange.fromStartEnd(start, end, false));
+    return merged;
+  }
+
+  /** Returns the normalized events, in order of start time. */
+  public List<Event> getEvents() {
+    return events;
+  }
+
+  /** Returns how many events the original calendar had. */
+  public int getInputEventCount() {
+    return numInputEvents;
+  }
+
+  /** Returns how many events of the original calendar were equal to an earlier one. */
+  public int getDuplicateEventCount() {
+    return numDuplicateEvents;
+  }
+
+  /**
+   * Returns how many busy intervals the original calendar had, counting one for each attendee of
+   * each event.
+   */
+  public int getInputIntervalCount() {
+    return numInputIntervals;
+  }
+
+  /** Returns how many busy intervals are left, counting one for each attendee of each event. */
+  public int getIntervalCount() {
+    return numIntervals;
+  }
+
+  /** Returns how many busy intervals normalizing removed, through duplicates and merging. */
+  public int getEliminatedIntervalCount() {
+    return numInputIntervals - numIntervals;
+  }
+}
@@ -0,0 +1,316 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the meeting times that let the most optional attendees attend, checking every possible
+ * start time exactly. Unlike {@code FindMeetingQuery}, which only looks at stretches of time where
+ * the same optional attendees are busy, this finds times that are optimal even when they overlap
+ * several such stretches, and an optional attendee with several events at once is counted once.
+ * The work is linear in the number of event boundaries after sorting them, so requests with
+ * hundreds of optional attendees stay fast.
+ */
+public final class OptimalMeetingQuery {
+  // Packed boundaries hold the time in the high 32 bits, and in the low bits who is blocked and
+  // whether the block starts or ends. Mandatory attendees share id 0.
+  private static final int MANDATORY_ID = 0;
+  private static final int END_FLAG = 1;
+
+  /** A meeting time along with the optional attendees who can attend it. */
+  public static final class Slot {
+    private final TimeRange when;
+    private final Set<String> optionalAttendees;
+
+    private Slot(TimeRange when, Set<String> optionalAttendees) {
+      this.when = when;
+      this.optionalAttendees = Collections.unmodifiableSet(optionalAttendees);
+    }
+
+    /**
+     * Returns the time range. The meeting can be held anywhere inside of it, and every placement is
+     * attended by the same optional attendees.
+     */
+    public TimeRange getWhen() {
+      return when;
+    }
+
+    /** Returns the optional attendees who can attend a meeting anywhere in the range. */
+    public Set<String> getOptionalAttendees() {
+      return optionalAttendees;
+    }
+
+    @Override
+    public String toString() {
+      return when + " " + optionalAttendees;
+    }
+  }
+
+  private final AttendeeDictionary dictionary;
+
+  /** Creates a query with its own attendee dictionary. */
+  public OptimalMeetingQuery() {
+    this(new AttendeeDictionary());
+  }
+
+  /** Creates a query that encodes attendees with {@code dictionary}. */
+  public OptimalMeetingQuery(AttendeeDictionary dictionary) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("dictionary cannot be null");
+    }
+    this.dictionary = dictionary;
+  }
+
+  /** Same as {@code query(events, request, window)} over the whole day. */
+  public List<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    return query(events, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Returns the time ranges in {@code window} where a meeting of the request's duration can be held
+   * anywhere and has every mandatory attendee and the largest possible number of optional
+   * attendees. If no optional attendee can make any time, this returns the times that work for the
+   * mandatory attendees.
+   */
+  public List<TimeRange> query(Collection<Event> events, MeetingRequest request, TimeRange window) {
+    List<TimeRange> ranges = new ArrayList<>();
+    for (Slot slot : search(events, request, window, false)) {
+      ranges.add(slot.getWhen());
+    }
+    return ranges;
+  }
+
+  /**
+   * Same as {@code query(events, request, window)}, but also says which optional attendees can
+   * attend each time. A range that {@code query} returns whole is split here wherever the group of
+   * optional attendees changes.
+   */
+  public List<Slot> queryWithAttendees(
+      Collection<Event> events, MeetingRequest request, TimeRange window) {
+    return search(events, request, window, true);
+  }
+
+  private List<Slot> search(
+      Collection<Event> events, MeetingRequest request, TimeRange window, boolean trackAttendees) {
+    if (window == null) {
+      throw new IllegalArgumentException("window cannot be null");
+    }
+
+    if (request.getDuration() < 1) {
+      throw new IllegalArgumentException("duration must be at least one minute");
+    }
+
+    // A meeting starting at any time in [firstStart, endOfStarts) fits in the window.
+    long duration = request.getDuration();
+    int firstStart = window.start();
+    long lastStart = window.end() - duration;
+    if (lastStart < firstStart) {
+      return Collections.emptyList();
+    }
+    int endOfStarts = (int) lastStart + 1;
+
+    String[] optionalAttendees = request.getOptionalAttendees().toArray(new String[0]);
+    Arrays.sort(optionalAttendees);
+    FindMeetingQuery.encodeAttendees(events, request, dictionary);
+    long[] mandatoryMask = request.getAttendeeMask(dictionary);
+    long[] optionalMask = request.getOptionalAttendeeMask(dictionary);
+    int[] optionalIndexById = new int[optionalMask.length << 6];
+    for (int i = 0; i < optionalAttendees.length; i++) {
+      // An optional attendee with no events has no id and is never busy.
+      int id = dictionary.idOf(optionalAttendees[i]);
+      if (id != -1) {
+        optionalIndexById[id] = i;
+      }
+    }
+
+    // Each busy time [start, end) blocks every meeting that starts in [start - duration + 1, end).
+    // Mandatory blocks are used as they are, since any of them rules a start out. Optional busy
+    // times are collected per attendee, packed as start and end, and merged below so that each
+    // attendee is only counted once at each start.
+    long[] boundaries = new long[16];
+    int numBoundaries = 0;
+    long[][] optionalBusyTimes = new long[optionalAttendees.length][];
+    int[] numOptionalBusyTimes = new int[optionalAttendees.length];
+
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      if (when.end() <= firstStart || when.start() - duration + 1 >= endOfStarts) {
+        continue;
+      }
+
+      long[] eventMask = event.getAttendeeMask(dictionary);
+      if (AttendeeDictionary.intersects(eventMask, mandatoryMask)) {
+        // The optional attendees of this event are not needed, since no meeting can start while
+        // it blocks the mandatory attendees.
+        if (numBoundaries + 2 > boundaries.length) {
+          boundaries = Arrays.copyOf(boundaries, 2 * boundaries.length);
+        }
+        int blockStart = (int) Math.max(when.start() - duration + 1, firstStart);
+        int blockEnd = Math.min(when.end(), endOfStarts);
+        boundaries[numBoundaries++] = packBoundary(blockStart, MANDATORY_ID, false);
+        boundaries[numBoundaries++] = packBoundary(blockEnd, MANDATORY_ID, true);
+        continue;
+      }
+
+      int words = Math.min(eventMask.length, optionalMask.length);
+      for (int word = 0; word < words; word++) {
+        long shared = eventMask[word] & optionalMask[word];
+        while (shared != 0) {
+          int index = optionalIndexById[(word << 6) + Long.numberOfTrailingZeros(shared)];
+          shared &= shared - 1;
+
+          long[] busyTimes = optionalBusyTimes[index];
+          if (busyTimes == null) {
+            busyTimes = new long[4];
+          } else if (numOptionalBusyTimes[index] == busyTimes.length) {
+            busyTimes = Arrays.copyOf(busyTimes, 2 * busyTimes.length);
+          }
+          busyTimes[numOptionalBusyTimes[index]++] =
+              ((long) when.start() << 32) | (when.end() & 0xFFFFFFFFL);
+          optionalBusyTimes[index] = busyTimes;
+        }
+      }
+    }
+
+    for (int i = 0; i < optionalAttendees.length; i++) {
+      long[] busyTimes = optionalBusyTimes[i];
+      int numBusyTimes = numOptionalBusyTimes[i];
+      if (busyTimes == null) {
+        continue;
+      }
+      Arrays.sort(busyTimes, 0, numBusyTimes);
+
+      int j = 0;
+      while (j < numBusyTimes) {
+        long blockStart = (int) (busyTimes[j] >> 32) - duration + 1;
+        int blockEnd = (int) busyTimes[j];
+        j++;
+        while (j < numBusyTimes && (int) (busyTimes[j] >> 32) - duration + 1 <= blockEnd) {
+          blockEnd = Math.max(blockEnd, (int) busyTimes[j]);
+          j++;
+        }
+
+        int clippedStart = (int) Math.max(blockStart, firstStart);
+        int clippedEnd = Math.min(blockEnd, endOfStarts);
+        if (clippedStart < clippedEnd) {
+          if (numBoundaries + 2 > boundaries.length) {
+            boundaries = Arrays.copyOf(boundaries, 2 * boundaries.length);
+          }
+          boundaries[numBoundaries++] = packBoundary(clippedStart, i + 1, false);
+          boundaries[numBoundaries++] = packBoundary(clippedEnd, i + 1, true);
+        }
+      }
+    }
+
+    boundaries = Arrays.copyOf(boundaries, numBoundaries);
+    Arrays.sort(boundaries);
+
+    // Sweeps over the start times, keeping the runs of starts with the most optional attendees.
+    long[] blocked = new long[(optionalAttendees.length + 64) >>> 6];
+    List<Integer> runStarts = new ArrayList<>();
+    List<Integer> runEnds = new ArrayList<>();
+    List<long[]> runBlocked = new ArrayList<>();
+    int maxAvailable = Integer.MIN_VALUE;
+
+    int mandatoryBlocks = 0;
+    int optionalBlocked = 0;
+    int nextBoundary = 0;
+    int curStart = firstStart;
+    while (curStart < endOfStarts) {
+      while (nextBoundary < boundaries.length
+          && boundaryTime(boundaries[nextBoundary]) == curStart) {
+        long boundary = boundaries[nextBoundary++];
+        int id = boundaryId(boundary);
+        int change = isEnd(boundary) ? -1 : 1;
+        if (id == MANDATORY_ID) {
+          mandatoryBlocks += change;
+        } else {
+          optionalBlocked += change;
+          if (trackAttendees) {
+            blocked[id >>> 6] ^= 1L << id;
+          }
+        }
+      }
+
+      int nextStart =
+          (nextBoundary < boundaries.length) ? boundaryTime(boundaries[nextBoundary]) : endOfStarts;
+      int available = optionalAttendees.length - optionalBlocked;
+
+      if (mandatoryBlocks == 0 && available >= maxAvailable) {
+        if (available > maxAvailable) {
+          maxAvailable = available;
+          runStarts.clear();
+          runEnds.clear();
+          runBlocked.clear();
+        }
+
+        int last = runEnds.size() - 1;
+        if (last >= 0
+            && runEnds.get(last) == curStart
+            && (!trackAttendees || Arrays.equals(runBlocked.get(last), blocked))) {
+          runEnds.set(last, nextStart);
+        } else {
+          runStarts.add(curStart);
+          runEnds.add(nextStart);
+          runBlocked.add(trackAttendees ? blocked.clone() : null);
+        }
+      }
+
+      curStart = nextStart;
+    }
+
+    List<Slot> slots = new ArrayList<>(runStarts.size());
+    for (int i = 0; i < runStarts.size(); i++) {
+      // The last meeting in the run starts at runEnds - 1 and runs for the whole duration.
+      TimeRange when =
+          TimeRange.fromStartEnd(runStarts.get(i), (int) (runEnds.get(i) - 1 + duration), false);
+
+      Set<String> attending = new HashSet<>();
+      if (trackAttendees) {
+        long[] runBlocks = runBlocked.get(i);
+        for (int id = 1; id <= optionalAttendees.length; id++) {
+          if ((runBlocks[id >>> 6] & (1L << id)) == 0) {
+            attending.add(optionalAttendees[id - 1]);
+          }
+        }
+      }
+      slots.add(new Slot(when, attending));
+    }
+    return slots;
+  }
+
+  private static long packBoundary(int time, int id, boolean end) {
+    return ((long) time << 32) | ((long) id << 1) | (end ? END_FLAG : 0);
+  }
+
+  private static int boundaryTime(long boundary) {
+    return (int) (boundary >> 32);
+  }
+
+  private static int boundaryId(long boundary) {
+    return (int) boundary >>> 1;
+  }
+
+  private static boolean isEnd(long boundary) {
+    return (boundary & END_FLAG) != 0;
+  }
+}
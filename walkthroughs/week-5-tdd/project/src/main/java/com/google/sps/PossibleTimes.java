@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the possible times found by a search and keeps the ones that allow the most optional
+ * attendees to attend. Times must be added in order of their start time, which lets this keep only
+ * the current best group instead of sorting every possible time at the end.
+ */
+final class PossibleTimes implements TimeCollector {
+  private final int limit;
+  private final int numOptionalAttendees;
+  // The start and end of each time in the current best group. TimeRanges are only made for the
+  // final answer, since most times are replaced by better ones before the search ends.
+  private int[] starts = new int[8];
+  private int[] ends = new int[8];
+  private int numOptimalTimes = 0;
+  // Starts below any count, since an optional attendee in several overlapping events is counted
+  // once for each of them and can make the count negative.
+  private int maxOptionalAttendees = Integer.MIN_VALUE;
+  private int numCandidates = 0;
+
+  /**
+   * Creates a collector that keeps at most {@code limit} times. Once it holds {@code limit} times
+   * that every optional attendee can attend, no later time can change the answer.
+   */
+  PossibleTimes(int limit, int numOptionalAttendees) {
+    this.limit = limit;
+    this.numOptionalAttendees = numOptionalAttendees;
+  }
+
+  @Override
+  public void add(int start, int end, int optionalAttendeesAvailable) {
+    numCandidates++;
+    if (optionalAttendeesAvailable > maxOptionalAttendees) {
+      // A better time replaces every time found so far.
+      numOptimalTimes = 0;
+      maxOptionalAttendees = optionalAttendeesAvailable;
+    }
+
+    if (optionalAttendeesAvailable == maxOptionalAttendees && numOptimalTimes < limit) {
+      if (numOptimalTimes == starts.length) {
+        starts = Arrays.copyOf(starts, 2 * starts.length);
+        ends = Arrays.copyOf(ends, 2 * ends.length);
+      }
+      starts[numOptimalTimes] = start;
+      ends[numOptimalTimes] = end;
+      numOptimalTimes++;
+    }
+  }
+
+  @Override
+  public boolean isComplete() {
+    return numOptimalTimes >= limit && maxOptionalAttendees >= numOptionalAttendees;
+  }
+
+  @Override
+  public int getCandidateCount() {
+    return numCandidates;
+  }
+
+  /** Returns the times that allow the most optional attendees to attend, in order of start. */
+  List<TimeRange> getOptimalTimes() {
+    List<TimeRange> optimalTimes = new ArrayList<TimeRange>(numOptimalTimes);
+    for (int i = 0; i < numOptimalTimes; i++) {
+      optimalTimes.add(TimeRange.fromStartEnd(starts[i], ends[i], false));
+    }
+    return optimalTimes;
+  }
+}
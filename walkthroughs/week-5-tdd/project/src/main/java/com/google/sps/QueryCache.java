@@ -0,0 +1,258 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of meeting query answers. Requests with the same attendees, optional attendees
+ * and duration share an entry, no matter what order their attendees are listed in. The least
+ * recently used entry is dropped once the cache is full, and entries are dropped once they are
+ * older than the time to live. Register the cache as a listener on the calendar so that entries
+ * are dropped when an event of one of their attendees changes. Safe to share between threads.
+ */
+public final class QueryCache implements CalendarIndex.Listener {
+  /** Finds the answer to a request that is not in the cache. */
+  public interface Loader {
+    Collection<TimeRange> load(MeetingRequest request);
+  }
+
+  /** Reads a time in nanoseconds. Lets tests control when entries expire. */
+  interface Ticker {
+    long read();
+  }
+
+  private static final Ticker SYSTEM_TICKER =
+      new Ticker() {
+        @Override
+        public long read() {
+          return System.nanoTime();
+        }
+      };
+
+  private final int maxEntries;
+  private final long timeToLiveNanos;
+  private final Ticker ticker;
+
+  // Both maps are guarded by this cache's lock. The entries are kept in least recently used order.
+  private final LinkedHashMap<Fingerprint, CacheEntry> entries;
+  private final Map<String, Set<Fingerprint>> fingerprintsByAttendee = new HashMap<>();
+
+  // Counts calendar edits, so that an answer found before an edit is never cached after it.
+  private long calendarVersion = 0;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /** Creates a cache of at most {@code maxEntries} answers, each kept for up to the given time. */
+  public QueryCache(int maxEntries, long timeToLive, TimeUnit unit) {
+    this(maxEntries, unit.toNanos(timeToLive), SYSTEM_TICKER);
+  }
+
+  QueryCache(int maxEntries, long timeToLiveNanos, Ticker ticker) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be at least one");
+    }
+
+    if (timeToLiveNanos <= 0) {
+      throw new IllegalArgumentException("timeToLive must be positive");
+    }
+
+    this.maxEntries = maxEntries;
+    this.timeToLiveNanos = timeToLiveNanos;
+    this.ticker = ticker;
+    this.entries =
+        new LinkedHashMap<Fingerprint, CacheEntry>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Fingerprint, CacheEntry> eldest) {
+            if (size() <= QueryCache.this.maxEntries) {
+              return false;
+            }
+            unlinkAttendees(eldest.getKey());
+            evictions.incrementAndGet();
+            return true;
+          }
+        };
+  }
+
+  /**
+   * Returns the cached answer to {@code request}, or finds it with {@code loader} and caches it.
+   * The loader runs without holding the cache's lock, so slow queries do not block other requests.
+   */
+  public Collection<TimeRange> get(MeetingRequest request, Loader loader) {
+    Fingerprint fingerprint = new Fingerprint(request);
+    long version;
+
+    synchronized (this) {
+      CacheEntry entry = entries.get(fingerprint);
+      if (entry != null && ticker.read() - entry.createdNanos < timeToLiveNanos) {
+        hits.incrementAndGet();
+        return entry.answer;
+      }
+
+      if (entry != null) {
+        entries.remove(fingerprint);
+        unlinkAttendees(fingerprint);
+        evictions.incrementAndGet();
+      }
+      misses.incrementAndGet();
+      version = calendarVersion;
+    }
+
+    Collection<TimeRange> answer =
+        Collections.unmodifiableList(new ArrayList<TimeRange>(loader.load(request)));
+
+    synchronized (this) {
+      // Skips caching if the calendar changed while the answer was being found.
+      if (version == calendarVersion && !entries.containsKey(fingerprint)) {
+        entries.put(fingerprint, new CacheEntry(answer, ticker.read()));
+        linkAttendees(fingerprint);
+      }
+    }
+    return answer;
+  }
+
+  /** Drops every cached answer for a request with any of {@code attendees}. */
+  @Override
+  public synchronized void attendeesChanged(Collection<String> attendees) {
+    calendarVersion++;
+    for (String attendee : attendees) {
+      Set<Fingerprint> fingerprints = fingerprintsByAttendee.get(attendee);
+      if (fingerprints == null) {
+        continue;
+      }
+
+      for (Fingerprint fingerprint : new ArrayList<>(fingerprints)) {
+        entries.remove(fingerprint);
+        unlinkAttendees(fingerprint);
+        invalidations.incrementAndGet();
+      }
+    }
+  }
+
+  /** Returns how many answers are cached, including any that have expired but not been dropped. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** Returns how many lookups found an answer in the cache. */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /** Returns how many lookups had to find the answer. */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /** Returns how many answers were dropped because the cache was full or they expired. */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /** Returns how many answers were dropped because an event of one of their attendees changed. */
+  public long getInvalidations() {
+    return invalidations.get();
+  }
+
+  private void linkAttendees(Fingerprint fingerprint) {
+    for (String attendee : fingerprint.attendees()) {
+      Set<Fingerprint> fingerprints = fingerprintsByAttendee.get(attendee);
+      if (fingerprints == null) {
+        fingerprints = new HashSet<>();
+        fingerprintsByAttendee.put(attendee, fingerprints);
+      }
+      fingerprints.add(fingerprint);
+    }
+  }
+
+  private void unlinkAttendees(Fingerprint fingerprint) {
+    for (String attendee : fingerprint.attendees()) {
+      Set<Fingerprint> fingerprints = fingerprintsByAttendee.get(attendee);
+      if (fingerprints != null && fingerprints.remove(fingerprint) && fingerprints.isEmpty()) {
+        fingerprintsByAttendee.remove(attendee);
+      }
+    }
+  }
+
+  private static final class CacheEntry {
+    private final Collection<TimeRange> answer;
+    private final long createdNanos;
+
+    private CacheEntry(Collection<TimeRange> answer, long createdNanos) {
+      this.answer = answer;
+      this.createdNanos = createdNanos;
+    }
+  }
+
+  /** The parts of a request that decide its answer, with the attendees in sorted order. */
+  private static final class Fingerprint {
+    private final String[] attendees;
+    private final String[] optionalAttendees;
+    private final long duration;
+    private final int hashCode;
+
+    private Fingerprint(MeetingRequest request) {
+      this.attendees = sorted(request.getAttendees());
+      this.optionalAttendees = sorted(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.hashCode =
+          31 * (31 * Arrays.hashCode(attendees) + Arrays.hashCode(optionalAttendees))
+              + Long.hashCode(duration);
+    }
+
+    private static String[] sorted(Collection<String> names) {
+      String[] array = names.toArray(new String[0]);
+      Arrays.sort(array);
+      return array;
+    }
+
+    /** Returns the mandatory and optional attendees. */
+    private List<String> attendees() {
+      List<String> all = new ArrayList<>(Arrays.asList(attendees));
+      all.addAll(Arrays.asList(optionalAttendees));
+      return all;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Fingerprint)) {
+        return false;
+      }
+      Fingerprint that = (Fingerprint) other;
+      return duration == that.duration
+          && Arrays.equals(attendees, that.attendees)
+          && Arrays.equals(optionalAttendees, that.optionalAttendees);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,137 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects every possible time found by a search, then scores them all at once and keeps the
+ * {@code k} best in a bounded heap. Candidates are kept in parallel int arrays so that scoring
+ * thousands of them only makes TimeRanges for the {@code k} that are returned.
+ */
+final class RankedTimes implements TimeCollector {
+  private final int k;
+  private int[] starts = new int[16];
+  private int[] ends = new int[16];
+  private int[] available = new int[16];
+  private int numTimes = 0;
+
+  RankedTimes(int k) {
+    this.k = k;
+  }
+
+  @Override
+  public void add(int start, int end, int optionalAttendeesAvailable) {
+    if (numTimes == starts.length) {
+      starts = Arrays.copyOf(starts, 2 * numTimes);
+      ends = Arrays.copyOf(ends, 2 * numTimes);
+      available = Arrays.copyOf(available, 2 * numTimes);
+    }
+    starts[numTimes] = start;
+    ends[numTimes] = end;
+    available[numTimes] = optionalAttendeesAvailable;
+    numTimes++;
+  }
+
+  /** Returns false, since the best time could be the last one found. */
+  @Override
+  public boolean isComplete() {
+    return false;
+  }
+
+  @Override
+  public int getCandidateCount() {
+    return numTimes;
+  }
+
+  /**
+   * Returns the {@code k} times that {@code scorer} scores highest, best first. Times with the
+   * same score are returned in order of start.
+   */
+  List<TimeRange> getBestTimes(SlotScorer scorer, long duration) {
+    double[] scores = new double[numTimes];
+    scorer.score(starts, ends, available, numTimes, duration, scores);
+
+    // A min-heap of candidate indexes whose root is the worst of the best found so far. Since
+    // candidates come in order of start, a later candidate only replaces the root if it is better.
+    int size = Math.min(k, numTimes);
+    int[] heap = new int[size];
+    int heapSize = 0;
+    for (int i = 0; i < numTimes; i++) {
+      if (heapSize < size) {
+        heap[heapSize++] = i;
+        siftUp(heap, heapSize - 1, scores);
+      } else if (isWorse(heap[0], i, scores)) {
+        heap[0] = i;
+        siftDown(heap, heapSize, scores);
+      }
+    }
+
+    // Empties the heap worst first, filling the answer from the back.
+    TimeRange[] bestTimes = new TimeRange[heapSize];
+    for (int n = heapSize; n > 0; n--) {
+      int worst = heap[0];
+      heap[0] = heap[n - 1];
+      siftDown(heap, n - 1, scores);
+      bestTimes[n - 1] = TimeRange.fromStartEnd(starts[worst], ends[worst], false);
+    }
+    return new ArrayList<TimeRange>(Arrays.asList(bestTimes));
+  }
+
+  /** Returns whether candidate {@code a} ranks below candidate {@code b}. */
+  private static boolean isWorse(int a, int b, double[] scores) {
+    // Candidates are indexed in order of start, so a later index loses a tie.
+    return scores[a] < scores[b] || (scores[a] == scores[b] && a > b);
+  }
+
+  private static void siftUp(int[] heap, int i, double[] scores) {
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (!isWorse(heap[i], heap[parent], scores)) {
+        return;
+      }
+      swap(heap, i, parent);
+      i = parent;
+    }
+  }
+
+  private static void siftDown(int[] heap, int size, double[] scores) {
+    int i = 0;
+    while (true) {
+      int worst = i;
+      int left = 2 * i + 1;
+      int right = left + 1;
+      if (left < size && isWorse(heap[left], heap[worst], scores)) {
+        worst = left;
+      }
+      if (right < size && isWorse(heap[right], heap[worst], scores)) {
+        worst = right;
+      }
+      if (worst == i) {
+        return;
+      }
+      swap(heap, i, worst);
+      i = worst;
+    }
+  }
+
+  private static void swap(int[] heap, int i, int j) {
+    int tmp = heap[i];
+    heap[i] = heap[j];
+    heap[j] = tmp;
+  }
+}
@@ -0,0 +1,251 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An event that repeats every few days or weeks, such as a daily standup or a weekly one-on-one.
+ * Its occurrences are never stored. Instead they are made one at a time, and only for the window
+ * being searched, so a recurrence with no end takes the same memory as one that repeats twice.
+ * Times are in minutes from the start of the first day, as with a multi-day search window.
+ * Recurring events are considered read-only.
+ */
+public final class RecurringEvent {
+  /** How often a recurring event repeats. */
+  public enum Frequency {
+    DAILY(24 * 60),
+    WEEKLY(7 * 24 * 60);
+
+    private final int minutes;
+
+    Frequency(int minutes) {
+      this.minutes = minutes;
+    }
+  }
+
+  /** Passed as {@code until} for a recurrence that never ends. */
+  public static final int FOREVER = Integer.MAX_VALUE;
+
+  private final String title;
+  private final TimeRange first;
+  private final Set<String> attendees = new HashSet<>();
+  private final long period;
+  private final int until;
+  private final Set<Integer> exceptions = new HashSet<>();
+
+  /**
+   * Creates an event that repeats forever with no exceptions.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param first The time of the first occurrence. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param frequency Whether the event repeats daily or weekly. Must be non-null.
+   * @param interval How many days or weeks apart the occurrences are. Must be at least one.
+   */
+  public RecurringEvent(
+      String title,
+      TimeRange first,
+      Collection<String> attendees,
+      Frequency frequency,
+      int interval) {
+    this(title, first, attendees, frequency, interval, FOREVER, Collections.<Integer>emptySet());
+  }
+
+  /**
+   * Creates a recurring event.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param first The time of the first occurrence. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param frequency Whether the event repeats daily or weekly. Must be non-null.
+   * @param interval How many days or weeks apart the occurrences are. Must be at least one.
+   * @param until No occurrence starts at or after this time. Use {@code FOREVER} for no end.
+   * @param exceptions The start times of occurrences that are cancelled. Must be non-null.
+   */
+  public RecurringEvent(
+      String title,
+      TimeRange first,
+      Collection<String> attendees,
+      Frequency frequency,
+      int interval,
+      int until,
+      Collection<Integer> exceptions) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (first == null) {
+      throw new IllegalArgumentException("first cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    if (frequency == null) {
+      throw new IllegalArgumentException("frequency cannot be null");
+    }
+
+    if (interval < 1) {
+      throw new IllegalArgumentException("interval must be at least one");
+    }
+
+    if (exceptions == null) {
+      throw new IllegalArgumentException("exceptions cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.first = first;
+    this.attendees.addAll(attendees);
+    this.period = (long) frequency.minutes * interval;
+    this.until = until;
+    this.exceptions.addAll(exceptions);
+  }
+
+  /** Returns the human-readable name for this event. */
+  public String getTitle() {
+    return title;
+  }
+
+  /** Returns a read-only set of required attendees for this event. */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  /**
+   * Returns a read-only view of the occurrences that overlap {@code window}, in order of start. The
+   * occurrences are made as the view is iterated, so none are kept in memory.
+   */
+  public Collection<Event> occurrencesIn(final TimeRange window) {
+    return new AbstractCollection<Event>() {
+      @Override
+      public Iterator<Event> iterator() {
+        return new OccurrenceIterator(window);
+      }
+
+      @Override
+      public int size() {
+        // Walks the start times without making the events.
+        OccurrenceIterator occurrences = new OccurrenceIterator(window);
+        int size = 0;
+        while (occurrences.hasNext()) {
+          occurrences.skip();
+          size++;
+        }
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Returns a read-only view of {@code events} followed by the occurrences of {@code
+   * recurringEvents} that overlap {@code window}. The view can be passed to {@code
+   * FindMeetingQuery} to search the window with the recurring events expanded as they are read.
+   */
+  public static Collection<Event> expand(
+      final Collection<Event> events,
+      final Collection<RecurringEvent> recurringEvents,
+      final TimeRange window) {
+    return new AbstractCollection<Event>() {
+      @Override
+      public Iterator<Event> iterator() {
+        return new Iterator<Event>() {
+          private Iterator<Event> current = events.iterator();
+          private final Iterator<RecurringEvent> recurring = recurringEvents.iterator();
+
+          @Override
+          public boolean hasNext() {
+            while (!current.hasNext() && recurring.hasNext()) {
+              current = recurring.next().new OccurrenceIterator(window);
+            }
+            return current.hasNext();
+          }
+
+          @Override
+          public Event next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return current.next();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        int size = events.size();
+        for (RecurringEvent recurringEvent : recurringEvents) {
+          size += recurringEvent.occurrencesIn(window).size();
+        }
+        return size;
+      }
+    };
+  }
+
+  /** Walks the start times of the occurrences that overlap a window, skipping exceptions. */
+  private final class OccurrenceIterator implements Iterator<Event> {
+    private final long end;
+    private long nextStart;
+
+    private OccurrenceIterator(TimeRange window) {
+      // An occurrence overlaps the window if it starts before the window ends and ends after the
+      // window starts, so the first one is found directly instead of by walking from the first.
+      long earliestStart = (long) window.start() - first.duration() + 1;
+      long skipped = Math.max(0, ceilDiv(earliestStart - first.start(), period));
+      this.nextStart = first.start() + skipped * period;
+      this.end = Math.min(window.end(), until);
+      skipExceptions();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextStart < end;
+    }
+
+    @Override
+    public Event next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      TimeRange when = TimeRange.fromStartDuration((int) nextStart, first.duration());
+      Event occurrence = new Event(title, when, attendees);
+      skip();
+      return occurrence;
+    }
+
+    /** Moves past the next occurrence without making it. */
+    private void skip() {
+      nextStart += period;
+      skipExceptions();
+    }
+
+    private void skipExceptions() {
+      while (nextStart < end && exceptions.contains((int) nextStart)) {
+        nextStart += period;
+      }
+    }
+  }
+
+  private static long ceilDiv(long a, long b) {
+    return -Math.floorDiv(-a, b);
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A room that meetings can be held in, along with how many people fit in it and the equipment it
+ * has, such as "projector". Rooms are considered read-only.
+ */
+public final class Room {
+  private final String name;
+  private final int capacity;
+  private final Set<String> equipment = new HashSet<>();
+
+  /**
+   * Creates a new room.
+   *
+   * @param name The name of the room, which is unique in a {@code RoomCalendar}. Must be non-null.
+   * @param capacity How many people fit in the room. Must be at least one.
+   * @param equipment The equipment in the room. Must be non-null.
+   */
+  public Room(String name, int capacity, Collection<String> equipment) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least one");
+    }
+
+    if (equipment == null) {
+      throw new IllegalArgumentException("equipment cannot be null. Use empty array instead.");
+    }
+
+    this.name = name;
+    this.capacity = capacity;
+    this.equipment.addAll(equipment);
+  }
+
+  /** Returns the name of the room. */
+  public String getName() {
+    return name;
+  }
+
+  /** Returns how many people fit in the room. */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** Returns a read-only set of the equipment in the room. */
+  public Set<String> getEquipment() {
+    return Collections.unmodifiableSet(equipment);
+  }
+
+  /** Returns whether the room fits {@code people} people and has all of {@code equipment}. */
+  public boolean fits(int people, Collection<String> equipment) {
+    return capacity >= people && this.equipment.containsAll(equipment);
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Room && equals(this, (Room) other);
+  }
+
+  private static boolean equals(Room a, Room b) {
+    return a.name.equals(b.name) && a.capacity == b.capacity && a.equipment.equals(b.equipment);
+  }
+
+  @Override
+  public String toString() {
+    return name + " (" + capacity + ")";
+  }
+}
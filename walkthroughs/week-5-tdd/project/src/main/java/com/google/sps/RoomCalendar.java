@@ -0,0 +1,307 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The bookings of a set of rooms, indexed so that a search can find a free room that fits a meeting
+ * without checking every room at every start time. Rooms are grouped into tiers by capacity, each
+ * covering a power of two such as 8 to 15 people, and the rooms of a tier into blocks of up to 64.
+ * Each block keeps one word per minute of the first day with a bit for each of its rooms that is
+ * busy, so a search reads all the rooms of a block at once and skips the tiers that are too small.
+ * Safe to share between threads.
+ */
+public final class RoomCalendar {
+  /** The rooms of one block that fit a meeting, and which of them are free at each start time. */
+  static final class FreeRooms {
+    // The smallest capacity of the block's tier. Every room in a later tier is bigger.
+    final int tier;
+    final Room[] rooms;
+    // Bit i of freeRooms[offset + t] is set when rooms[i] fits and is free from minute t for the
+    // meeting's whole duration. The words of every block of a search share one array.
+    private final long[] freeRooms;
+    private final int offset;
+
+    private FreeRooms(int tier, Room[] rooms, long[] freeRooms, int offset) {
+      this.tier = tier;
+      this.rooms = rooms;
+      this.freeRooms = freeRooms;
+      this.offset = offset;
+    }
+
+    /** Returns the rooms that are free from minute {@code start}, with bit i for rooms[i]. */
+    long getFree(int start) {
+      return freeRooms[offset + start];
+    }
+  }
+
+  /** The arrays a search works in, reused by each thread since searches share the read lock. */
+  private static final class Scratch {
+    private final long[] busyUntilStretchEnd = new long[MinuteBitmap.MINUTES];
+    private final long[] busyFromStretchStart = new long[MinuteBitmap.MINUTES];
+    private long[] freeRooms = new long[0];
+  }
+
+  private static final int BLOCK_SIZE = 64;
+
+  private static final ThreadLocal<Scratch> SCRATCH =
+      new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+          return new Scratch();
+        }
+      };
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<String, RoomState> rooms = new HashMap<>();
+  // The blocks of each tier, keyed by the smallest capacity in the tier.
+  private final TreeMap<Integer, List<Block>> tiers = new TreeMap<>();
+
+  /** Creates a calendar with no rooms. */
+  public RoomCalendar() {}
+
+  /** Creates a calendar of {@code rooms} with no bookings. */
+  public RoomCalendar(Collection<Room> rooms) {
+    for (Room room : rooms) {
+      addRoom(room);
+    }
+  }
+
+  /** Adds a room with no bookings. Throws an IllegalArgumentException if its name is taken. */
+  public void addRoom(Room room) {
+    lock.writeLock().lock();
+    try {
+      if (rooms.containsKey(room.getName())) {
+        throw new IllegalArgumentException("There is already a room named " + room.getName());
+      }
+
+      int tier = Integer.highestOneBit(room.getCapacity());
+      List<Block> blocks = tiers.get(tier);
+      if (blocks == null) {
+        blocks = new ArrayList<>();
+        tiers.put(tier, blocks);
+      }
+      Block block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+      if (block == null || block.size == BLOCK_SIZE) {
+        block = new Block();
+        blocks.add(block);
+      }
+
+      RoomState state = new RoomState(room, block, block.size);
+      block.rooms[block.size++] = state;
+      rooms.put(room.getName(), state);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Returns every room, in no particular order. */
+  public List<Room> getRooms() {
+    lock.readLock().lock();
+    try {
+      List<Room> list = new ArrayList<>(rooms.size());
+      for (RoomState state : rooms.values()) {
+        list.add(state.room);
+      }
+      return list;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Books the room named {@code roomName} for {@code when}. Bookings can overlap. */
+  public void addBooking(String roomName, TimeRange when) {
+    lock.writeLock().lock();
+    try {
+      RoomState state = getState(roomName);
+      Integer count = state.bookings.get(when);
+      state.bookings.put(when, (count == null) ? 1 : count + 1);
+      state.busyTimeline.add(when);
+      state.redraw(when);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes one booking of the room named {@code roomName} for {@code when}. Returns false if the
+   * room has no such booking.
+   */
+  public boolean removeBooking(String roomName, TimeRange when) {
+    lock.writeLock().lock();
+    try {
+      RoomState state = getState(roomName);
+      Integer count = state.bookings.get(when);
+      if (count == null) {
+        return false;
+      }
+
+      if (count == 1) {
+        state.bookings.remove(when);
+      } else {
+        state.bookings.put(when, count - 1);
+      }
+      state.busyTimeline.remove(when);
+      state.redraw(when);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Returns the merged times that the room named {@code roomName} is booked in {@code window}. */
+  public List<TimeRange> getBusyTimes(String roomName, TimeRange window) {
+    lock.readLock().lock();
+    try {
+      return getState(roomName).busyTimeline.getBusyTimes(window);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the rooms that fit {@code people} people and have all of {@code equipment}, with the
+   * start times in the first day when each is free for {@code duration} minutes. Blocks with no
+   * room that fits are left out, and the rest are in order of capacity tier, smallest first. The
+   * result is kept in scratch space of the calling thread, so it is only valid until the thread's
+   * next call.
+   */
+  List<FreeRooms> getFreeRooms(int people, Collection<String> equipment, int duration) {
+    List<FreeRooms> freeRooms = new ArrayList<>();
+    if (duration > MinuteBitmap.MINUTES) {
+      return freeRooms;
+    }
+
+    int starts = MinuteBitmap.MINUTES - duration + 1;
+    Scratch scratch = SCRATCH.get();
+    long[] busyUntilStretchEnd = scratch.busyUntilStretchEnd;
+    long[] busyFromStretchStart = scratch.busyFromStretchStart;
+    lock.readLock().lock();
+    try {
+      // The smallest tier that fits can also have rooms that are too small, which are left out of
+      // the mask below.
+      int smallestTier = Integer.highestOneBit(Math.max(people, 1));
+      Map<Integer, List<Block>> fittingTiers = tiers.tailMap(smallestTier, true);
+      int numBlocks = 0;
+      for (List<Block> blocks : fittingTiers.values()) {
+        numBlocks += blocks.size();
+      }
+      if (scratch.freeRooms.length < numBlocks * starts) {
+        scratch.freeRooms = new long[numBlocks * starts];
+      }
+      long[] free = scratch.freeRooms;
+      int offset = 0;
+
+      for (Map.Entry<Integer, List<Block>> tier : fittingTiers.entrySet()) {
+        for (Block block : tier.getValue()) {
+          long fitting = 0;
+          Room[] blockRooms = new Room[block.size];
+          for (int i = 0; i < block.size; i++) {
+            blockRooms[i] = block.rooms[i].room;
+            if (blockRooms[i].fits(people, equipment)) {
+              fitting |= 1L << i;
+            }
+          }
+          if (fitting == 0) {
+            continue;
+          }
+
+          // Which rooms are busy during each run of duration minutes, found in three passes over
+          // the day however long the meeting is. The day is cut into stretches of duration
+          // minutes, and every run covers the end of one stretch and the start of the next.
+          long[] busyRooms = block.busyRooms;
+          for (int m = 0; m < MinuteBitmap.MINUTES; m++) {
+            busyFromStretchStart[m] =
+                (m % duration == 0) ? busyRooms[m] : busyFromStretchStart[m - 1] | busyRooms[m];
+          }
+          for (int m = MinuteBitmap.MINUTES - 1; m >= 0; m--) {
+            busyUntilStretchEnd[m] =
+                (m % duration == duration - 1 || m == MinuteBitmap.MINUTES - 1)
+                    ? busyRooms[m]
+                    : busyUntilStretchEnd[m + 1] | busyRooms[m];
+          }
+          for (int t = 0; t < starts; t++) {
+            free[offset + t] =
+                ~(busyUntilStretchEnd[t] | busyFromStretchStart[t + duration - 1]) & fitting;
+          }
+          freeRooms.add(new FreeRooms(tier.getKey(), blockRooms, free, offset));
+          offset += starts;
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return freeRooms;
+  }
+
+  private RoomState getState(String roomName) {
+    RoomState state = rooms.get(roomName);
+    if (state == null) {
+      throw new IllegalArgumentException("There is no room named " + roomName);
+    }
+    return state;
+  }
+
+  /** Up to 64 rooms of one tier. */
+  private static final class Block {
+    private final RoomState[] rooms = new RoomState[BLOCK_SIZE];
+    private int size = 0;
+    // Bit i of busyRooms[m] is set when rooms[i] is busy at minute m of the first day.
+    private final long[] busyRooms = new long[MinuteBitmap.MINUTES];
+  }
+
+  /** The bookings of one room, and where it is in its block. */
+  private static final class RoomState {
+    private final Room room;
+    private final Block block;
+    private final long bit;
+    // How many times each range is booked, so that only real bookings are removed.
+    private final Map<TimeRange, Integer> bookings = new HashMap<>();
+    private final BusyTimeline busyTimeline = new BusyTimeline();
+
+    private RoomState(Room room, Block block, int index) {
+      this.room = room;
+      this.block = block;
+      this.bit = 1L << index;
+    }
+
+    /** Copies the busy minutes of {@code range} in the first day from the timeline to the block. */
+    private void redraw(TimeRange range) {
+      int from = Math.max(range.start(), 0);
+      int to = Math.min(range.end(), MinuteBitmap.MINUTES);
+      if (from >= to) {
+        return;
+      }
+
+      long[] busyRooms = block.busyRooms;
+      for (int m = from; m < to; m++) {
+        busyRooms[m] &= ~bit;
+      }
+      for (TimeRange busy : busyTimeline.getBusyTimes(TimeRange.fromStartEnd(from, to, false))) {
+        for (int m = busy.start(); m < busy.end(); m++) {
+          busyRooms[m] |= bit;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,214 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds times in the first day when the attendees of a meeting are free and a room that fits them
+ * is free too. Attendees are read from the busy-minute bitmaps of a {@code CalendarIndex}, and
+ * rooms from a {@code RoomCalendar}, which hands back the free rooms of up to 64 at a time for each
+ * start time. Each start time gets the smallest free room that fits, but keeps the room of the
+ * start time before it while that room stays free, so a slot does not hop between rooms.
+ */
+public final class RoomMeetingQuery {
+  /** A meeting time along with the room to hold it in. */
+  public static final class Slot {
+    private final TimeRange when;
+    private final Room room;
+
+    private Slot(TimeRange when, Room room) {
+      this.when = when;
+      this.room = room;
+    }
+
+    /** Returns the time range. The meeting can be held in the room anywhere inside of it. */
+    public TimeRange getWhen() {
+      return when;
+    }
+
+    /** Returns the room that is free for the whole time range. */
+    public Room getRoom() {
+      return room;
+    }
+
+    @Override
+    public int hashCode() {
+      return when.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Slot
+          && when.equals(((Slot) other).when)
+          && room.equals(((Slot) other).room);
+    }
+
+    @Override
+    public String toString() {
+      return when + " " + room;
+    }
+  }
+
+  /**
+   * Same as {@code query(calendar, rooms, request, people, equipment)} with a room big enough for
+   * every mandatory and optional attendee and no equipment.
+   */
+  public List<Slot> query(CalendarIndex calendar, RoomCalendar rooms, MeetingRequest request) {
+    int people = request.getAttendees().size() + request.getOptionalAttendees().size();
+    return query(calendar, rooms, request, people, Collections.<String>emptyList());
+  }
+
+  /**
+   * Returns the times in the first day when every mandatory attendee of {@code request} is free and
+   * a room for {@code people} people with all of {@code equipment} is free, in order of start time.
+   * As with {@code FindMeetingQuery}, only the start times that the most optional attendees can
+   * make are kept.
+   */
+  public List<Slot> query(
+      CalendarIndex calendar,
+      RoomCalendar rooms,
+      MeetingRequest request,
+      int people,
+      Collection<String> equipment) {
+    if (request.getDuration() > MinuteBitmap.MINUTES) {
+      return new ArrayList<>();
+    }
+
+    // A meeting with no duration still needs the room for the minute it starts in.
+    int duration = (int) Math.max(request.getDuration(), 1);
+    List<RoomCalendar.FreeRooms> freeRooms = rooms.getFreeRooms(people, equipment, duration);
+
+    // The start times that work for the mandatory attendees and have a free room.
+    long[] starts = getFreeStarts(calendar.getBusyMinutes(request.getAttendees()), duration);
+    for (int t = MinuteBitmap.nextSetBit(starts, 0);
+        t < MinuteBitmap.MINUTES;
+        t = MinuteBitmap.nextSetBit(starts, t + 1)) {
+      if (!hasFreeRoom(freeRooms, t)) {
+        MinuteBitmap.clear(starts, t, t + 1);
+      }
+    }
+
+    if (!request.getOptionalAttendees().isEmpty()) {
+      int[] optionalAttendeesAvailable = new int[MinuteBitmap.MINUTES];
+      for (String attendee : request.getOptionalAttendees()) {
+        long[] free =
+            getFreeStarts(calendar.getBusyMinutes(Collections.singleton(attendee)), duration);
+        for (int t = MinuteBitmap.nextSetBit(free, 0);
+            t < MinuteBitmap.MINUTES;
+            t = MinuteBitmap.nextSetBit(free, t + 1)) {
+          optionalAttendeesAvailable[t]++;
+        }
+      }
+
+      int maxOptionalAttendees = 0;
+      for (int t = MinuteBitmap.nextSetBit(starts, 0);
+          t < MinuteBitmap.MINUTES;
+          t = MinuteBitmap.nextSetBit(starts, t + 1)) {
+        maxOptionalAttendees = Math.max(maxOptionalAttendees, optionalAttendeesAvailable[t]);
+      }
+      for (int t = MinuteBitmap.nextSetBit(starts, 0);
+          t < MinuteBitmap.MINUTES;
+          t = MinuteBitmap.nextSetBit(starts, t + 1)) {
+        if (optionalAttendeesAvailable[t] < maxOptionalAttendees) {
+          MinuteBitmap.clear(starts, t, t + 1);
+        }
+      }
+    }
+    return findSlots(starts, freeRooms, duration);
+  }
+
+  /** Returns the minutes a meeting of {@code duration} minutes can start at in free time. */
+  private static long[] getFreeStarts(long[] busyMinutes, int duration) {
+    long[] starts = new long[MinuteBitmap.WORDS];
+    int start = MinuteBitmap.nextClearBit(busyMinutes, 0);
+    while (start < MinuteBitmap.MINUTES) {
+      int end = MinuteBitmap.nextSetBit(busyMinutes, start);
+      if (end - start >= duration) {
+        MinuteBitmap.set(starts, start, end - duration + 1);
+      }
+      start = MinuteBitmap.nextClearBit(busyMinutes, end);
+    }
+    return starts;
+  }
+
+  private static boolean hasFreeRoom(List<RoomCalendar.FreeRooms> freeRooms, int start) {
+    for (RoomCalendar.FreeRooms block : freeRooms) {
+      if (block.getFree(start) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Gives each start time in {@code starts} a free room and joins them into slots. */
+  private static List<Slot> findSlots(
+      long[] starts, List<RoomCalendar.FreeRooms> freeRooms, int duration) {
+    List<Slot> slots = new ArrayList<>();
+    // The room of the slot being built, given by its block and bit, and its first and last start.
+    RoomCalendar.FreeRooms block = null;
+    long bit = 0;
+    int first = 0;
+    int last = 0;
+
+    for (int t = MinuteBitmap.nextSetBit(starts, 0);
+        t < MinuteBitmap.MINUTES;
+        t = MinuteBitmap.nextSetBit(starts, t + 1)) {
+      if (block != null && t == last + 1 && (block.getFree(t) & bit) != 0) {
+        last = t;
+        continue;
+      }
+
+      if (block != null) {
+        slots.add(newSlot(block, bit, first, last, duration));
+        block = null;
+      }
+      // Rooms within a tier are in the order they were added, so every free room of the first
+      // tier with one is compared. Later tiers only hold bigger rooms.
+      int capacity = Integer.MAX_VALUE;
+      for (RoomCalendar.FreeRooms candidate : freeRooms) {
+        if (block != null && candidate.tier != block.tier) {
+          break;
+        }
+        long free = candidate.getFree(t);
+        while (free != 0) {
+          long lowest = Long.lowestOneBit(free);
+          Room room = candidate.rooms[Long.numberOfTrailingZeros(lowest)];
+          if (room.getCapacity() < capacity) {
+            capacity = room.getCapacity();
+            block = candidate;
+            bit = lowest;
+          }
+          free ^= lowest;
+        }
+      }
+      first = t;
+      last = t;
+    }
+    if (block != null) {
+      slots.add(newSlot(block, bit, first, last, duration));
+    }
+    return slots;
+  }
+
+  private static Slot newSlot(
+      RoomCalendar.FreeRooms block, long bit, int first, int last, int duration) {
+    Room room = block.rooms[Long.numberOfTrailingZeros(bit)];
+    return new Slot(TimeRange.fromStartEnd(first, last + duration, false), room);
+  }
+}
@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what {@code FindMeetingQuery} does and times how long each part of a query takes, so
+ * that it can be seen where queries spend their time in production. Every count is a {@code
+ * LongAdder} and every timing a {@code LatencyHistogram}, so recording never takes a lock and
+ * threads running queries at once do not slow each other down. Safe to share between threads.
+ */
+public final class SchedulerMetrics {
+  /** The parts of a query that are timed. */
+  public enum Phase {
+    /** Finding the events or busy times that conflict with the request. */
+    CONFLICTS,
+    /** Filling the day array or the bitmap of busy minutes. */
+    DAY_ARRAY,
+    /** Sorting the boundaries of the conflicts, or the possible times. */
+    SORT,
+    /** Walking the day or the boundaries to find the possible times. */
+    SCAN
+  }
+
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder eventsScanned = new LongAdder();
+  private final LongAdder eventsRelevant = new LongAdder();
+  private final LongAdder candidates = new LongAdder();
+  private final LatencyHistogram queryNanos = new LatencyHistogram();
+  private final LatencyHistogram[] phaseNanos = new LatencyHistogram[Phase.values().length];
+
+  /** Creates metrics with nothing counted. */
+  public SchedulerMetrics() {
+    for (int i = 0; i < phaseNanos.length; i++) {
+      phaseNanos[i] = new LatencyHistogram();
+    }
+  }
+
+  /** Records a query that took {@code nanos} and found {@code candidates} possible times. */
+  void recordQuery(long nanos, int candidates) {
+    queries.increment();
+    queryNanos.record(nanos);
+    this.candidates.add(candidates);
+  }
+
+  /** Records that {@code phase} of a query took {@code nanos}. */
+  void recordPhase(Phase phase, long nanos) {
+    phaseNanos[phase.ordinal()].record(nanos);
+  }
+
+  /**
+   * Records that a query looked at {@code scanned} events or busy times, of which {@code relevant}
+   * conflicted with the request.
+   */
+  void recordEvents(int scanned, int relevant) {
+    eventsScanned.add(scanned);
+    eventsRelevant.add(relevant);
+  }
+
+  /** Returns how many queries were run. */
+  public long getQueries() {
+    return queries.sum();
+  }
+
+  /** Returns how many events or busy times the queries looked at. */
+  public long getEventsScanned() {
+    return eventsScanned.sum();
+  }
+
+  /** Returns how many of the events or busy times looked at conflicted with their request. */
+  public long getEventsRelevant() {
+    return eventsRelevant.sum();
+  }
+
+  /** Returns how many possible times the queries found, before keeping the best of them. */
+  public long getCandidates() {
+    return candidates.sum();
+  }
+
+  /** Returns how long the queries took, in nanoseconds. */
+  public LatencyHistogram getQueryNanos() {
+    return queryNanos;
+  }
+
+  /** Returns how long {@code phase} of the queries took, in nanoseconds. */
+  public LatencyHistogram getPhaseNanos(Phase phase) {
+    return phaseNanos[phase.ordinal()];
+  }
+
+  /**
+   * Returns the counts and timings as nested maps of names to numbers, ready to be written as
+   * JSON. Timings are in microseconds.
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("queries", getQueries());
+    map.put("eventsScanned", getEventsScanned());
+    map.put("eventsRelevant", getEventsRelevant());
+    map.put("candidates", getCandidates());
+    map.put("latency", toMap(queryNanos));
+
+    Map<String, Object> phases = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      phases.put(phase.name().toLowerCase(Locale.ROOT), toMap(getPhaseNanos(phase)));
+    }
+    map.put("phases", phases);
+    return map;
+  }
+
+  private static Map<String, Object> toMap(LatencyHistogram histogram) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("count", histogram.getCount());
+    map.put("meanMicros", histogram.getMean() / 1000);
+    map.put("p50Micros", histogram.getValueAtPercentile(50) / 1000.0);
+    map.put("p90Micros", histogram.getValueAtPercentile(90) / 1000.0);
+    map.put("p99Micros", histogram.getValueAtPercentile(99) / 1000.0);
+    map.put("maxMicros", histogram.getMax() / 1000.0);
+    return map;
+  }
+}
@@ -0,0 +1,31 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Scores candidate meeting times so that the best ones can be picked. Candidates are passed as
+ * parallel arrays, so a scorer runs as a plain loop over primitives with no objects per candidate.
+ * {@code SlotScorers} has the built-in scorers and combines them.
+ */
+public interface SlotScorer {
+  /**
+   * Adds this scorer's score for each of the first {@code count} candidates to {@code scores}. A
+   * candidate is free from {@code starts[i]} to {@code ends[i]}, has {@code available[i]} optional
+   * attendees able to attend, and holds a meeting of {@code duration} minutes at its start. Higher
+   * scores are better.
+   */
+  void score(
+      int[] starts, int[] ends, int[] available, int count, long duration, double[] scores);
+}
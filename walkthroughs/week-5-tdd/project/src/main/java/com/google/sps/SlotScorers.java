@@ -0,0 +1,127 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/** The built-in {@code SlotScorer}s, and a way to add several of them together. */
+public final class SlotScorers {
+  private static final int MINS_IN_DAY = 24 * 60;
+
+  private SlotScorers() {}
+
+  /**
+   * Scores {@code weight} for each optional attendee who can attend. On its own this ranks times
+   * the same way as {@code FindMeetingQuery.query}.
+   */
+  public static SlotScorer optionalAttendees(final double weight) {
+    return new SlotScorer() {
+      @Override
+      public void score(
+          int[] starts, int[] ends, int[] available, int count, long duration, double[] scores) {
+        for (int i = 0; i < count; i++) {
+          scores[i] += weight * available[i];
+        }
+      }
+    };
+  }
+
+  /**
+   * Scores {@code weight} for a meeting that falls completely within {@code from} to {@code to}
+   * minutes after midnight on its day, such as 10am to 4pm.
+   */
+  public static SlotScorer preferredHours(final int from, final int to, final double weight) {
+    if (from < 0 || to > MINS_IN_DAY || from >= to) {
+      throw new IllegalArgumentException("preferred hours must be a range within one day");
+    }
+
+    return new SlotScorer() {
+      @Override
+      public void score(
+          int[] starts, int[] ends, int[] available, int count, long duration, double[] scores) {
+        for (int i = 0; i < count; i++) {
+          int startOfDay = Math.floorMod(starts[i], MINS_IN_DAY);
+          if (startOfDay >= from && startOfDay + duration <= to) {
+            scores[i] += weight;
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Scores {@code -weight} for a meeting that leaves less than {@code minGap} minutes free before
+   * the attendees' next conflict. Such short gaps break up the attendees' days without leaving
+   * time to get anything done.
+   */
+  public static SlotScorer fragmentation(final int minGap, final double weight) {
+    return new SlotScorer() {
+      @Override
+      public void score(
+          int[] starts, int[] ends, int[] available, int count, long duration, double[] scores) {
+        for (int i = 0; i < count; i++) {
+          long gap = ends[i] - starts[i] - duration;
+          if (gap > 0 && gap < minGap) {
+            scores[i] -= weight;
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Scores {@code -weight} for each attendee whose local time puts the meeting outside of
+   * {@code from} to {@code to} minutes after their local midnight. Each entry of {@code
+   * utcOffsets} is one attendee's offset from the calendar's time in minutes, so that a fair time
+   * inconveniences as few time zones as possible.
+   */
+  public static SlotScorer timeZoneFairness(
+      int[] utcOffsets, final int from, final int to, final double weight) {
+    if (from < 0 || to > MINS_IN_DAY || from >= to) {
+      throw new IllegalArgumentException("local hours must be a range within one day");
+    }
+    final int[] offsets = utcOffsets.clone();
+
+    return new SlotScorer() {
+      @Override
+      public void score(
+          int[] starts, int[] ends, int[] available, int count, long duration, double[] scores) {
+        for (int i = 0; i < count; i++) {
+          int outside = 0;
+          for (int offset : offsets) {
+            int localStart = Math.floorMod(starts[i] + offset, MINS_IN_DAY);
+            if (localStart < from || localStart + duration > to) {
+              outside++;
+            }
+          }
+          scores[i] -= weight * outside;
+        }
+      }
+    };
+  }
+
+  /** Returns a scorer whose score is the sum of the scores of {@code scorers}. */
+  public static SlotScorer sum(SlotScorer... scorers) {
+    final SlotScorer[] parts = scorers.clone();
+
+    return new SlotScorer() {
+      @Override
+      public void score(
+          int[] starts, int[] ends, int[] available, int count, long duration, double[] scores) {
+        for (SlotScorer part : parts) {
+          part.score(starts, ends, available, count, duration, scores);
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,130 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Hands out one string for each distinct run of bytes, so that a name read many times is only
+ * decoded once and every copy of it shares the same string. Not safe to share between threads.
+ */
+final class StringPool {
+  private byte[][] keys = new byte[16][];
+  private int[] hashes = new int[16];
+  private String[] values = new String[16];
+  private int size = 0;
+
+  /** Returns how many distinct strings the pool holds. */
+  int size() {
+    return size;
+  }
+
+  /** Returns the string for {@code bytes[from, to)}, decoding it as UTF-8 the first time. */
+  String intern(byte[] bytes, int from, int to) {
+    int hash = hash(bytes, from, to);
+    int slot = find(bytes, from, to, hash);
+    String value = values[slot];
+    if (value == null) {
+      value = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+      insert(slot, Arrays.copyOfRange(bytes, from, to), hash, value);
+    }
+    return value;
+  }
+
+  /** Returns the string stored for {@code bytes[from, to)}, or null if there is none. */
+  String get(byte[] bytes, int from, int to) {
+    return values[find(bytes, from, to, hash(bytes, from, to))];
+  }
+
+  /**
+   * Stores {@code value} as the string for {@code bytes[from, to)}. Used for runs of bytes that are
+   * not the plain UTF-8 of their string, such as names with escaped characters.
+   */
+  void put(byte[] bytes, int from, int to, String value) {
+    int hash = hash(bytes, from, to);
+    int slot = find(bytes, from, to, hash);
+    if (values[slot] == null) {
+      insert(slot, Arrays.copyOfRange(bytes, from, to), hash, value);
+    } else {
+      values[slot] = value;
+    }
+  }
+
+  private void insert(int slot, byte[] key, int hash, String value) {
+    keys[slot] = key;
+    hashes[slot] = hash;
+    values[slot] = value;
+    size++;
+    // Kept at most half full so that probes stay short.
+    if (size * 2 > keys.length) {
+      resize();
+    }
+  }
+
+  /** Returns the slot holding {@code bytes[from, to)}, or the empty slot where it would go. */
+  private int find(byte[] bytes, int from, int to, int hash) {
+    int mask = keys.length - 1;
+    int slot = hash & mask;
+    while (values[slot] != null
+        && (hashes[slot] != hash || !equals(keys[slot], bytes, from, to))) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void resize() {
+    byte[][] oldKeys = keys;
+    int[] oldHashes = hashes;
+    String[] oldValues = values;
+    keys = new byte[oldKeys.length * 2][];
+    hashes = new int[oldKeys.length * 2];
+    values = new String[oldKeys.length * 2];
+
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = oldHashes[i] & mask;
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        hashes[slot] = oldHashes[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private static int hash(byte[] bytes, int from, int to) {
+    int hash = 1;
+    for (int i = from; i < to; i++) {
+      hash = 31 * hash + bytes[i];
+    }
+    // Spreads the high bits into the low bits used to pick a slot.
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean equals(byte[] key, byte[] bytes, int from, int to) {
+    if (key.length != to - from) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (key[i] != bytes[from + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,30 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/** Receives the possible times found by a sweep, in order of their start time. */
+interface TimeCollector {
+  /**
+   * Adds the time from {@code start} to {@code end}, which {@code optionalAttendeesAvailable}
+   * optional attendees can attend.
+   */
+  void add(int start, int end, int optionalAttendeesAvailable);
+
+  /** Returns whether no time added later could change the answer, so the search can stop. */
+  boolean isComplete();
+
+  /** Returns how many times have been added, including any that were not kept. */
+  int getCandidateCount();
+}
@@ -0,0 +1,114 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The hours someone works each day in their own time zone, such as 9am to 5pm at UTC-5. Meeting
+ * times are in minutes from the start of the first day in UTC, so the working hours are shifted by
+ * the time-zone offset before they are compared against them. The hours outside of the first day's
+ * working hours are worked out once, as a bitmap, when the working hours are created. Working hours
+ * are considered read-only.
+ */
+public final class WorkingHours {
+  private static final int MINS_IN_DAY = 24 * 60;
+
+  private final int utcOffset;
+  private final int start;
+  private final int end;
+  // The minutes of the first day outside of the working hours, as described in MinuteBitmap.
+  private final long[] dayOffMinutes = new long[MinuteBitmap.WORDS];
+
+  /**
+   * Creates working hours.
+   *
+   * @param utcOffset How many minutes the time zone is ahead of UTC, such as -300 for UTC-5. Must
+   *     be within a day either way.
+   * @param start When work starts each day, in local minutes from midnight.
+   * @param end When work ends each day, in local minutes from midnight. Must be after {@code start}
+   *     and no later than the end of the day.
+   */
+  public WorkingHours(int utcOffset, int start, int end) {
+    if (utcOffset <= -MINS_IN_DAY || utcOffset >= MINS_IN_DAY) {
+      throw new IllegalArgumentException("utcOffset must be within a day");
+    }
+
+    if (start < 0 || end > MINS_IN_DAY || start >= end) {
+      throw new IllegalArgumentException("working hours must be a range within one day");
+    }
+
+    this.utcOffset = utcOffset;
+    this.start = start;
+    this.end = end;
+    for (TimeRange offHours : getOffHours(TimeRange.WHOLE_DAY)) {
+      MinuteBitmap.set(dayOffMinutes, offHours.start(), offHours.end());
+    }
+  }
+
+  /** Returns how many minutes the time zone is ahead of UTC. */
+  public int getUtcOffset() {
+    return utcOffset;
+  }
+
+  /** Returns when work starts each day, in local minutes from midnight. */
+  public int getStart() {
+    return start;
+  }
+
+  /** Returns when work ends each day, in local minutes from midnight. */
+  public int getEnd() {
+    return end;
+  }
+
+  /** Returns the times in {@code window} outside of the working hours, in order. */
+  public List<TimeRange> getOffHours(TimeRange window) {
+    List<TimeRange> offHours = new ArrayList<>();
+    long from = window.start();
+    long to = window.end();
+
+    // Starts a couple of days early so that working hours that began before the window, shifted by
+    // up to a day of offset, are not missed.
+    long day = Math.floorDiv(from + utcOffset, MINS_IN_DAY) - 2;
+    while (from < to) {
+      long workStart = day * MINS_IN_DAY + start - utcOffset;
+      long workEnd = day * MINS_IN_DAY + end - utcOffset;
+      day++;
+      if (workEnd <= from) {
+        continue;
+      }
+
+      if (workStart > from) {
+        long offEnd = Math.min(workStart, to);
+        offHours.add(TimeRange.fromStartEnd((int) from, (int) offEnd, false));
+      }
+      from = workEnd;
+    }
+    return offHours;
+  }
+
+  /** Sets the bits of {@code busyMinutes} for each minute of the first day outside of work. */
+  void addOffMinutes(long[] busyMinutes) {
+    for (int i = 0; i < MinuteBitmap.WORDS; i++) {
+      busyMinutes[i] |= dayOffMinutes[i];
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d to %d at UTC%+d", start, end, utcOffset);
+  }
+}
@@ -0,0 +1,90 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.AvailabilityHeatmap;
+import com.google.sps.BusyTimeSource;
+import com.google.sps.TimeRange;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends how many of a group of people are free in each bucket of a window. The people are given as
+ * repeated {@code attendee} parameters, and {@code start}, {@code end} and {@code bucket} set the
+ * window and bucket size in minutes. They default to the whole day in 15 minute buckets, and the
+ * window can be up to a week long. The response is a JSON object whose {@code free} array holds one
+ * count per bucket.
+ */
+@WebServlet("/availability")
+public class AvailabilityServlet extends HttpServlet {
+  private static final int DEFAULT_BUCKET_MINUTES = 15;
+  private static final int MAX_WINDOW_MINUTES = 7 * 24 * 60;
+
+  private BusyTimeSource calendar;
+
+  @Override
+  public void init() {
+    calendar = CalendarListener.getCalendar(getServletContext());
+  }
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String[] attendees = request.getParameterValues("attendee");
+    Collection<String> people =
+        (attendees == null)
+            ? Collections.<String>emptySet()
+            : new LinkedHashSet<>(Arrays.asList(attendees));
+
+    TimeRange window;
+    int bucketMinutes;
+    int[] freeCounts;
+    try {
+      int start = Parameters.getNonNegativeInt(request, "start", TimeRange.START_OF_DAY);
+      int end = Parameters.getNonNegativeInt(request, "end", TimeRange.WHOLE_DAY.end());
+      if (end <= start || end - start > MAX_WINDOW_MINUTES) {
+        throw new IllegalArgumentException("end must be after start and at most a week later");
+      }
+      window = TimeRange.fromStartEnd(start, end, false);
+      bucketMinutes = Parameters.getNonNegativeInt(request, "bucket", DEFAULT_BUCKET_MINUTES);
+      freeCounts = AvailabilityHeatmap.countFree(calendar, people, window, bucketMinutes);
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    // Send the counts back as a compact JSON object, written straight to the response
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("start").value(window.start());
+    writer.name("bucketMinutes").value(bucketMinutes);
+    writer.name("people").value(people.size());
+    writer.name("free").beginArray();
+    for (int count : freeCounts) {
+      writer.value(count);
+    }
+    writer.endArray();
+    writer.endObject();
+    writer.flush();
+  }
+}
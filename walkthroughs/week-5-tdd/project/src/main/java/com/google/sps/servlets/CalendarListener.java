@@ -0,0 +1,186 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.BusyTimeSource;
+import com.google.sps.CalendarIndex;
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.Event;
+import com.google.sps.EventLoader;
+import com.google.sps.EventStore;
+import com.google.sps.Events;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.QueryCache;
+import com.google.sps.SchedulerMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Indexes the calendar once when the app starts, so that every servlet answering meeting requests
+ * can share the same index. The servlets also share one {@code FindMeetingQuery}, so that each
+ * event only has its attendees encoded once, and one {@code QueryCache} that is cleared as the
+ * calendar changes. Every query the shared {@code FindMeetingQuery} runs is recorded in one {@code
+ * SchedulerMetrics}. The calendar is read from the file named by the {@code sps.events.file} system
+ * property if it is set, and is the sample {@code Events} otherwise.
+ *
+ * <p>If the {@code sps.snapshot.file} system property is set, the calendar is served from that
+ * {@code CalendarSnapshot} instead of an index, so starting up only maps the file. The snapshot is
+ * written from the calendar above the first time, and is not rebuilt when the events change, so it
+ * has to be deleted to pick up a new events file.
+ */
+@WebListener
+public class CalendarListener implements ServletContextListener {
+  private static final String EVENTS = Event.class.getName();
+  private static final String CALENDAR = BusyTimeSource.class.getName();
+  private static final String FIND_MEETING_QUERY = FindMeetingQuery.class.getName();
+  private static final String QUERY_CACHE = QueryCache.class.getName();
+  private static final String SCHEDULER_METRICS = SchedulerMetrics.class.getName();
+
+  private static final String EVENTS_FILE_PROPERTY = "sps.events.file";
+  private static final String SNAPSHOT_FILE_PROPERTY = "sps.snapshot.file";
+  private static final long LOAD_PROGRESS_INTERVAL = 1000000;
+
+  // Enough for the requests of everyone clicking around the calendar at once.
+  private static final int QUERY_CACHE_ENTRIES = 1000;
+  private static final long QUERY_CACHE_MINUTES = 10;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    ServletContext context = event.getServletContext();
+    QueryCache queryCache =
+        new QueryCache(QUERY_CACHE_ENTRIES, QUERY_CACHE_MINUTES, TimeUnit.MINUTES);
+    List<Event> events;
+    BusyTimeSource calendar;
+    String snapshotName = System.getProperty(SNAPSHOT_FILE_PROPERTY);
+    if (snapshotName != null) {
+      // The snapshot never changes, so the cache has nothing to listen to.
+      CalendarSnapshot snapshot = openSnapshot(context, Paths.get(snapshotName));
+      events = Collections.unmodifiableList(snapshot);
+      calendar = snapshot;
+    } else {
+      List<Event> loaded = new ArrayList<>();
+      loadEvents(context, loaded);
+      events = Collections.unmodifiableList(loaded);
+      // The index merges each attendee's busy times itself, so the events are indexed as they are.
+      CalendarIndex calendarIndex = new CalendarIndex(events);
+      calendarIndex.addListener(queryCache);
+      calendar = calendarIndex;
+    }
+
+    SchedulerMetrics schedulerMetrics = new SchedulerMetrics();
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    findMeetingQuery.setMetrics(schedulerMetrics);
+
+    context.setAttribute(EVENTS, events);
+    context.setAttribute(CALENDAR, calendar);
+    context.setAttribute(FIND_MEETING_QUERY, findMeetingQuery);
+    context.setAttribute(QUERY_CACHE, queryCache);
+    context.setAttribute(SCHEDULER_METRICS, schedulerMetrics);
+  }
+
+  /** Opens the snapshot at {@code path}, writing it from the loaded events if it is missing. */
+  private static CalendarSnapshot openSnapshot(ServletContext context, Path path) {
+    try {
+      if (!Files.exists(path)) {
+        EventStore store = new EventStore();
+        loadEvents(context, store);
+        store.trimToSize();
+        CalendarSnapshot.write(store, path);
+        context.log(String.format("Wrote a snapshot of %d events to %s", store.size(), path));
+      }
+      CalendarSnapshot snapshot = CalendarSnapshot.open(path);
+      context.log(String.format("Opened a snapshot of %d events from %s", snapshot.size(), path));
+      return snapshot;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not open the snapshot " + path, e);
+    }
+  }
+
+  private static void loadEvents(final ServletContext context, Collection<? super Event> events) {
+    String fileName = System.getProperty(EVENTS_FILE_PROPERTY);
+    if (fileName == null) {
+      events.addAll(Arrays.asList(Events.events));
+      return;
+    }
+
+    EventLoader loader = new EventLoader(EventLoader.Format.forFileName(fileName));
+    loader.setProgress(
+        new EventLoader.Progress() {
+          @Override
+          public void loaded(EventLoader.Stats stats) {
+            context.log("Loading events: " + stats);
+          }
+        },
+        LOAD_PROGRESS_INTERVAL);
+
+    try {
+      EventLoader.Stats stats = loader.load(Paths.get(fileName), events);
+      context.log(
+          String.format(
+              "Loaded %s from %s with %d distinct names", stats, fileName, loader.getNameCount()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read events from " + fileName, e);
+    }
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    ServletContext context = event.getServletContext();
+    context.removeAttribute(EVENTS);
+    context.removeAttribute(CALENDAR);
+    context.removeAttribute(FIND_MEETING_QUERY);
+    context.removeAttribute(QUERY_CACHE);
+    context.removeAttribute(SCHEDULER_METRICS);
+  }
+
+  /** Returns the events of the calendar that meeting requests are answered from. */
+  @SuppressWarnings("unchecked")
+  static List<Event> getEvents(ServletContext context) {
+    return (List<Event>) context.getAttribute(EVENTS);
+  }
+
+  /** Returns the busy times shared by the app, from an index or a snapshot. */
+  static BusyTimeSource getCalendar(ServletContext context) {
+    return (BusyTimeSource) context.getAttribute(CALENDAR);
+  }
+
+  /** Returns the meeting query shared by the app. */
+  static FindMeetingQuery getFindMeetingQuery(ServletContext context) {
+    return (FindMeetingQuery) context.getAttribute(FIND_MEETING_QUERY);
+  }
+
+  /** Returns the cache of meeting query answers shared by the app. */
+  static QueryCache getQueryCache(ServletContext context) {
+    return (QueryCache) context.getAttribute(QUERY_CACHE);
+  }
+
+  /** Returns the metrics of the meeting queries run by the app. */
+  static SchedulerMetrics getSchedulerMetrics(ServletContext context) {
+    return (SchedulerMetrics) context.getAttribute(SCHEDULER_METRICS);
+  }
+}
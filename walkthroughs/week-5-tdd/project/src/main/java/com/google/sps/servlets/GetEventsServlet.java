@@ -14,23 +14,73 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.sps.Event;
+import com.google.sps.data.CalendarProtos;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
+import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Sends the events in the calendar, which are the same events that meeting requests are answered
+ * from. The optional {@code offset} and {@code limit} parameters pick
+ * out one page of the events, and the {@code X-Total-Count} header says how many there are in all.
+ * The events are written to the response one at a time, so a large calendar is never held in
+ * memory as a single String. If the Accept header asks for {@code application/x-protobuf}, the page
+ * is sent as an {@code Events} protobuf instead of JSON.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+  private List<Event> events;
+
+  @Override
+  public void init() {
+    events = CalendarListener.getEvents(getServletContext());
+  }
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
 
-    // Send the JSON back as the response
+    int offset;
+    int limit;
+    try {
+      offset = Parameters.getNonNegativeInt(request, "offset", 0);
+      limit = Parameters.getNonNegativeInt(request, "limit", events.size());
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    int from = Math.min(offset, events.size());
+    int to = from + Math.min(limit, events.size() - from);
+
+    response.setHeader(TOTAL_COUNT_HEADER, Integer.toString(events.size()));
+
+    if (Protobuf.acceptsProtobuf(request)) {
+      CalendarProtos.Events.Builder page =
+          CalendarProtos.Events.newBuilder().setTotalCount(events.size());
+      for (int i = from; i < to; i++) {
+        page.addEvents(Protobuf.toProto(events.get(i)));
+      }
+
+      response.setContentType(Protobuf.CONTENT_TYPE);
+      page.build().writeTo(response.getOutputStream());
+      return;
+    }
+
+    // Send the events back as a JSON array, one event at a time
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginArray();
+    for (int i = from; i < to; i++) {
+      Json.GSON.toJson(events.get(i), Event.class, writer);
+    }
+    writer.endArray();
+    writer.flush();
   }
 }
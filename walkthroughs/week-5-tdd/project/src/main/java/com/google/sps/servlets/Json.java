@@ -0,0 +1,35 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The JSON support shared by the servlets. Gson is thread-safe, so a single instance serves every
+ * request instead of each request building its own.
+ */
+final class Json {
+  static final Gson GSON = new Gson();
+
+  private Json() {}
+
+  /** Writes {@code value} as the JSON response, without first building it as a String. */
+  static void write(HttpServletResponse response, Object value) throws IOException {
+    response.setContentType("application/json");
+    GSON.toJson(value, response.getWriter());
+  }
+}
@@ -0,0 +1,43 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import javax.servlet.http.HttpServletRequest;
+
+/** Reads the query parameters shared by the servlets. */
+final class Parameters {
+  private Parameters() {}
+
+  /**
+   * Returns a parameter that has to be a non-negative number, or {@code defaultValue} if it is
+   * missing. Throws an IllegalArgumentException naming the parameter if it is not a number.
+   */
+  static int getNonNegativeInt(HttpServletRequest request, String name, int defaultValue) {
+    String value = request.getParameter(name);
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      int number = Integer.parseInt(value);
+      if (number >= 0) {
+        return number;
+      }
+    } catch (NumberFormatException e) {
+      // Falls through to the error below.
+    }
+    throw new IllegalArgumentException(name + " must be a non-negative number");
+  }
+}
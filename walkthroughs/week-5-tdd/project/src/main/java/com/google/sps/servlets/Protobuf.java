@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.sps.data.CalendarProtos;
+import java.util.Collection;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Converts between the calendar classes and the protobuf messages in calendar.proto, for callers
+ * that would rather speak protobuf than JSON.
+ */
+final class Protobuf {
+  static final String CONTENT_TYPE = "application/x-protobuf";
+
+  private Protobuf() {}
+
+  /** Returns whether the request body is a protobuf message. */
+  static boolean isProtobuf(HttpServletRequest request) {
+    String contentType = request.getContentType();
+    return contentType != null && contentType.startsWith(CONTENT_TYPE);
+  }
+
+  /** Returns whether the caller asked for a protobuf response in its Accept header. */
+  static boolean acceptsProtobuf(HttpServletRequest request) {
+    String accept = request.getHeader("Accept");
+    return accept != null && accept.contains(CONTENT_TYPE);
+  }
+
+  static MeetingRequest fromProto(CalendarProtos.MeetingRequest proto) {
+    MeetingRequest request = new MeetingRequest(proto.getAttendeesList(), proto.getDuration());
+    for (String attendee : proto.getOptionalAttendeesList()) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  static CalendarProtos.TimeRange toProto(TimeRange range) {
+    return CalendarProtos.TimeRange.newBuilder()
+        .setStart(range.start())
+        .setDuration(range.duration())
+        .build();
+  }
+
+  static CalendarProtos.TimeRanges toProto(Collection<TimeRange> ranges) {
+    CalendarProtos.TimeRanges.Builder builder = CalendarProtos.TimeRanges.newBuilder();
+    for (TimeRange range : ranges) {
+      builder.addTimeRanges(toProto(range));
+    }
+    return builder.build();
+  }
+
+  static CalendarProtos.Event toProto(Event event) {
+    return CalendarProtos.Event.newBuilder()
+        .setTitle(event.getTitle())
+        .setWhen(toProto(event.getWhen()))
+        .addAllAttendees(event.getAttendees())
+        .build();
+  }
+}
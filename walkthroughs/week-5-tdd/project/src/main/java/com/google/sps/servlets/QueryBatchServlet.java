@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.BatchMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a list of meeting requests in one call. The response holds the answer to each request,
+ * in the same order as the requests.
+ */
+@WebServlet("/query-batch")
+public class QueryBatchServlet extends HttpServlet {
+  private static final Type MEETING_REQUEST_LIST =
+      new TypeToken<List<MeetingRequest>>() {}.getType();
+
+  private BatchMeetingQuery batchMeetingQuery;
+
+  @Override
+  public void init() {
+    batchMeetingQuery =
+        new BatchMeetingQuery(
+            CalendarListener.getCalendar(getServletContext()),
+            CalendarListener.getFindMeetingQuery(getServletContext()),
+            ForkJoinPool.commonPool());
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Convert the JSON to a list of MeetingRequests, and find the possible meeting times for every
+    // request. An empty body reads as null, which is rejected along with null requests.
+    List<Collection<TimeRange>> answers;
+    try {
+      List<MeetingRequest> meetingRequests =
+          Json.GSON.fromJson(request.getReader(), MEETING_REQUEST_LIST);
+      if (meetingRequests == null) {
+        throw new IllegalArgumentException("body must be a JSON array of meeting requests");
+      }
+      answers = batchMeetingQuery.query(meetingRequests);
+    } catch (JsonParseException | IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    // Send the times back as JSON, written straight to the response
+    Json.write(response, answers);
+  }
+}
@@ -14,38 +14,79 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
+import com.google.sps.BusyTimeSource;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryCache;
 import com.google.sps.TimeRange;
-import com.google.gson.Gson;
+import com.google.sps.data.CalendarProtos;
+import com.google.gson.JsonParseException;
+import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Finds the possible times for a meeting request. The request can be sent as JSON or, with a
+ * Content-Type of {@code application/x-protobuf}, as a {@code MeetingRequest} protobuf. The times
+ * are sent back as a {@code TimeRanges} protobuf if the Accept header asks for one, and as JSON
+ * otherwise.
+ */
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
-  @Override
-  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
+  private FindMeetingQuery findMeetingQuery;
+  private BusyTimeSource calendar;
+  private QueryCache queryCache;
+  private QueryCache.Loader loader;
 
-    // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+  @Override
+  public void init() {
+    // The calendar is indexed or mapped once, so each request only reads the busy times of its own
+    // attendees.
+    findMeetingQuery = CalendarListener.getFindMeetingQuery(getServletContext());
+    calendar = CalendarListener.getCalendar(getServletContext());
+    queryCache = CalendarListener.getQueryCache(getServletContext());
+    loader =
+        new QueryCache.Loader() {
+          @Override
+          public Collection<TimeRange> load(MeetingRequest meetingRequest) {
+            return findMeetingQuery.query(calendar, meetingRequest);
+          }
+        };
+  }
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Convert the JSON or protobuf to an instance of MeetingRequest. A body that does not parse,
+    // or an empty JSON body, is rejected.
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest =
+          Protobuf.isProtobuf(request)
+              ? Protobuf.fromProto(
+                  CalendarProtos.MeetingRequest.parseFrom(request.getInputStream()))
+              : Json.GSON.fromJson(request.getReader(), MeetingRequest.class);
+    } catch (InvalidProtocolBufferException | JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "body must be a meeting request");
+      return;
+    }
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    // Find the possible meeting times, reusing the answer if the same request was made before.
+    Collection<TimeRange> answer = queryCache.get(meetingRequest, loader);
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    // Send the times back, written straight to the response
+    if (Protobuf.acceptsProtobuf(request)) {
+      response.setContentType(Protobuf.CONTENT_TYPE);
+      Protobuf.toProto(answer).writeTo(response.getOutputStream());
+    } else {
+      Json.write(response, answer);
+    }
   }
 }
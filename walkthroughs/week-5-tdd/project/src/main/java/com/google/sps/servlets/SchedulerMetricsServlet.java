@@ -0,0 +1,55 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.QueryCache;
+import com.google.sps.SchedulerMetrics;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends the counts and timings of the meeting queries run so far, and how well the query cache is
+ * doing, as JSON. Reading them takes no lock, so polling this does not slow down the queries.
+ */
+@WebServlet("/scheduler-metrics")
+public class SchedulerMetricsServlet extends HttpServlet {
+  private SchedulerMetrics schedulerMetrics;
+  private QueryCache queryCache;
+
+  @Override
+  public void init() {
+    schedulerMetrics = CalendarListener.getSchedulerMetrics(getServletContext());
+    queryCache = CalendarListener.getQueryCache(getServletContext());
+  }
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Map<String, Object> cache = new LinkedHashMap<>();
+    cache.put("hits", queryCache.getHits());
+    cache.put("misses", queryCache.getMisses());
+    cache.put("evictions", queryCache.getEvictions());
+    cache.put("invalidations", queryCache.getInvalidations());
+
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("scheduler", schedulerMetrics.toMap());
+    metrics.put("queryCache", cache);
+    Json.write(response, metrics);
+  }
+}
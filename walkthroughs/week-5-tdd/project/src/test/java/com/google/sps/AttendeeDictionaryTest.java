@@ -0,0 +1,124 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeDictionaryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  @Test
+  public void idsAreDenseAndStable() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    Assert.assertEquals(0, dictionary.intern(PERSON_A));
+    Assert.assertEquals(1, dictionary.intern(PERSON_B));
+    Assert.assertEquals(0, dictionary.intern(PERSON_A));
+    Assert.assertEquals(-1, dictionary.idOf(PERSON_C));
+    Assert.assertEquals(PERSON_B, dictionary.nameOf(1));
+    Assert.assertEquals(2, dictionary.size());
+  }
+
+  @Test
+  public void masksCompareAttendees() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    long[] ab = dictionary.maskOf(Arrays.asList(PERSON_A, PERSON_B));
+    long[] bc = dictionary.maskOf(Arrays.asList(PERSON_B, PERSON_C));
+    long[] c = dictionary.maskOf(Arrays.asList(PERSON_C));
+
+    Assert.assertTrue(AttendeeDictionary.intersects(ab, bc));
+    Assert.assertFalse(AttendeeDictionary.intersects(ab, c));
+    Assert.assertEquals(1, AttendeeDictionary.countShared(ab, bc));
+    Assert.assertEquals(0, AttendeeDictionary.countShared(ab, c));
+  }
+
+  @Test
+  public void masksOfDifferentLengths() {
+    // Give out enough ids that the later attendees need a second word in their masks.
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    for (int i = 0; i < 100; i++) {
+      dictionary.intern("Person " + i);
+    }
+
+    long[] early = dictionary.maskOf(Arrays.asList("Person 1"));
+    long[] late = dictionary.maskOf(Arrays.asList("Person 1", "Person 99"));
+    long[] none = dictionary.maskOf(Collections.<String>emptyList());
+
+    Assert.assertEquals(1, early.length);
+    Assert.assertEquals(2, late.length);
+    Assert.assertEquals(1, AttendeeDictionary.countShared(early, late));
+    Assert.assertEquals(1, AttendeeDictionary.countShared(late, early));
+    Assert.assertFalse(AttendeeDictionary.intersects(late, none));
+  }
+
+  @Test
+  public void knownMaskLeavesOutUnseenNames() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    dictionary.intern(PERSON_A);
+
+    long[] mask = dictionary.knownMaskOf(Arrays.asList(PERSON_A, PERSON_B));
+
+    Assert.assertEquals(1, AttendeeDictionary.countShared(mask, mask));
+    Assert.assertEquals(1, dictionary.size());
+    Assert.assertFalse(dictionary.knowsAll(Arrays.asList(PERSON_A, PERSON_B)));
+  }
+
+  @Test
+  public void requestsDoNotAddNames() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE, dictionary);
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1", TimeRange.fromStartDuration(480, 60), Arrays.asList(PERSON_A)));
+
+    for (int i = 0; i < 100; i++) {
+      MeetingRequest request = new MeetingRequest(Arrays.asList("Stranger " + i), 30);
+      request.addOptionalAttendee("Optional stranger " + i);
+      Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), query.query(events, request));
+    }
+
+    // Only the event's attendee is given an id.
+    Assert.assertEquals(1, dictionary.size());
+  }
+
+  @Test
+  public void firstQueryFindsConflictsOfNewEvents() {
+    // The request names Person A before any event with them has been given ids.
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE, dictionary);
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(0, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_A)));
+
+    Collection<TimeRange> actual =
+        query.query(events, new MeetingRequest(Arrays.asList(PERSON_A), 30));
+
+    Assert.assertEquals(Collections.emptyList(), actual);
+  }
+}
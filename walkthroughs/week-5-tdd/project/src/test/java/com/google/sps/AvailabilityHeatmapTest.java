@@ -0,0 +1,112 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AvailabilityHeatmapTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final Collection<String> PEOPLE = Arrays.asList(PERSON_A, PERSON_B, PERSON_C);
+
+  // One hour, in 15 minute buckets.
+  private static final TimeRange HOUR = TimeRange.fromStartDuration(0, 60);
+  private static final int BUCKET = 15;
+
+  private static Event event(int start, int end, String... attendees) {
+    return new Event("Event", TimeRange.fromStartEnd(start, end, false), Arrays.asList(attendees));
+  }
+
+  @Test
+  public void countsFreePeoplePerBucket() {
+    // Buckets : |-0-|-1-|-2-|-3-|
+    // Events  :   |---A---|
+    //                  |B|
+    List<Event> events = Arrays.asList(event(10, 35, PERSON_A), event(30, 40, PERSON_B));
+
+    int[] expected = {2, 2, 1, 3};
+
+    Assert.assertArrayEquals(expected, AvailabilityHeatmap.countFree(events, PEOPLE, HOUR, BUCKET));
+    Assert.assertArrayEquals(
+        expected,
+        AvailabilityHeatmap.countFree(new CalendarIndex(events), PEOPLE, HOUR, BUCKET));
+  }
+
+  @Test
+  public void eventWithNoLengthIsIgnored() {
+    // Buckets : |-0-|-1-|-2-|-3-|
+    // Events  :       A
+    List<Event> events = Arrays.asList(event(20, 20, PERSON_A));
+
+    int[] expected = {3, 3, 3, 3};
+
+    Assert.assertArrayEquals(expected, AvailabilityHeatmap.countFree(events, PEOPLE, HOUR, BUCKET));
+    Assert.assertArrayEquals(
+        expected,
+        AvailabilityHeatmap.countFree(new CalendarIndex(events), PEOPLE, HOUR, BUCKET));
+  }
+
+  @Test
+  public void doubleBookedPersonCountsOnce() {
+    // Both of A's events fall in the first bucket, so A is only taken away once.
+    List<Event> events =
+        Arrays.asList(event(0, 5, PERSON_A), event(10, 15, PERSON_A), event(0, 60, PERSON_C));
+
+    int[] expected = {1, 2, 2, 2};
+
+    Assert.assertArrayEquals(expected, AvailabilityHeatmap.countFree(events, PEOPLE, HOUR, BUCKET));
+    Assert.assertArrayEquals(
+        expected,
+        AvailabilityHeatmap.countFree(new CalendarIndex(events), PEOPLE, HOUR, BUCKET));
+  }
+
+  @Test
+  public void lastBucketIsCutShort() {
+    // A 50 minute window has a last bucket of only 5 minutes.
+    List<Event> events = Arrays.asList(event(48, 100, PERSON_B));
+
+    int[] actual =
+        AvailabilityHeatmap.countFree(
+            events, PEOPLE, TimeRange.fromStartDuration(0, 50), BUCKET);
+
+    Assert.assertArrayEquals(new int[] {3, 3, 3, 2}, actual);
+  }
+
+  @Test
+  public void sampleCalendarMatchesIndex() {
+    List<Event> events = Arrays.asList(Events.events);
+    Collection<String> people = Arrays.asList("Amelia", "Isabella", "Logan", "Noah", "Nobody");
+
+    Assert.assertArrayEquals(
+        AvailabilityHeatmap.countFree(events, people, TimeRange.WHOLE_DAY, BUCKET),
+        AvailabilityHeatmap.countFree(
+            new CalendarIndex(events), people, TimeRange.WHOLE_DAY, BUCKET));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroBucketIsRejected() {
+    AvailabilityHeatmap.countFree(Arrays.<Event>asList(), PEOPLE, HOUR, 0);
+  }
+}
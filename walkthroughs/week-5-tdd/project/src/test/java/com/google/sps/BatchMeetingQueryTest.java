@@ -0,0 +1,88 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BatchMeetingQueryTest {
+  private static final String[] PEOPLE = {
+    "Amelia", "Ava", "Emma", "Isabella", "James", "Liam", "Logan", "Noah", "Oliver", "Olivia"
+  };
+
+  @Test
+  public void answersMatchSingleQueriesInOrder() {
+    List<Event> events = Arrays.asList(Events.events);
+
+    // Build a request for every pair of people, with the next person as an optional attendee.
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int i = 0; i < PEOPLE.length; i++) {
+      for (int j = i + 1; j < PEOPLE.length; j++) {
+        MeetingRequest request = new MeetingRequest(Arrays.asList(PEOPLE[i], PEOPLE[j]), 30);
+        request.addOptionalAttendee(PEOPLE[(j + 1) % PEOPLE.length]);
+        requests.add(request);
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      CalendarIndex calendarIndex = new CalendarIndex(events);
+      BatchMeetingQuery batch = new BatchMeetingQuery(calendarIndex, new FindMeetingQuery(), pool);
+      List<Collection<TimeRange>> actual = batch.query(requests);
+
+      FindMeetingQuery query = new FindMeetingQuery();
+      List<Collection<TimeRange>> expected = new ArrayList<>();
+      for (MeetingRequest request : requests) {
+        expected.add(query.query(calendarIndex, request));
+      }
+
+      Assert.assertEquals(expected, actual);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void noRequests() {
+    BatchMeetingQuery batch = new BatchMeetingQuery(Arrays.asList(Events.events));
+
+    List<Collection<TimeRange>> actual = batch.query(Collections.<MeetingRequest>emptyList());
+
+    Assert.assertTrue(actual.isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullRequestsAreRejected() {
+    new BatchMeetingQuery(Arrays.asList(Events.events)).query(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullRequestIsRejected() {
+    List<MeetingRequest> requests =
+        Arrays.asList(new MeetingRequest(Arrays.asList(PEOPLE[0]), 30), null);
+
+    new BatchMeetingQuery(Arrays.asList(Events.events)).query(requests);
+  }
+}
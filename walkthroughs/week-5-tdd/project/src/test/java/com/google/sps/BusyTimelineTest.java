@@ -0,0 +1,67 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BusyTimelineTest {
+  @Test
+  public void overlappingAndBackToBackTimesAreMerged() {
+    BusyTimeline timeline = new BusyTimeline();
+    timeline.add(TimeRange.fromStartEnd(100, 200, false));
+    timeline.add(TimeRange.fromStartEnd(150, 250, false));
+    timeline.add(TimeRange.fromStartEnd(250, 300, false));
+    timeline.add(TimeRange.fromStartEnd(400, 500, false));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(100, 300, false), TimeRange.fromStartEnd(400, 500, false)),
+        timeline.getBusyTimes(TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void removingOneOfTwoCopiesStaysBusy() {
+    BusyTimeline timeline = new BusyTimeline();
+    timeline.add(TimeRange.fromStartEnd(100, 200, false));
+    timeline.add(TimeRange.fromStartEnd(100, 200, false));
+
+    timeline.remove(TimeRange.fromStartEnd(100, 200, false));
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(100, 200, false)),
+        timeline.getBusyTimes(TimeRange.WHOLE_DAY));
+
+    timeline.remove(TimeRange.fromStartEnd(100, 200, false));
+    Assert.assertTrue(timeline.isEmpty());
+  }
+
+  @Test
+  public void busyTimesAreCutToWindow() {
+    BusyTimeline timeline = new BusyTimeline();
+    timeline.add(TimeRange.fromStartEnd(100, 200, false));
+    timeline.add(TimeRange.fromStartEnd(300, 400, false));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(150, 200, false), TimeRange.fromStartEnd(300, 350, false)),
+        timeline.getBusyTimes(TimeRange.fromStartEnd(150, 350, false)));
+    Assert.assertTrue(timeline.getBusyTimes(TimeRange.fromStartEnd(200, 300, false)).isEmpty());
+  }
+}
@@ -0,0 +1,197 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final Event EVENT_A_AT_10 =
+      new Event(
+          "Event 1",
+          TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+          Arrays.asList(PERSON_A));
+  private static final Event EVENT_AB_AT_8 =
+      new Event(
+          "Event 2",
+          TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+          Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event EVENT_C_AT_9 =
+      new Event(
+          "Event 3",
+          TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+          Arrays.asList(PERSON_C));
+
+  @Test
+  public void eventsAreSortedByStart() {
+    CalendarIndex index =
+        new CalendarIndex(Arrays.asList(EVENT_A_AT_10, EVENT_AB_AT_8, EVENT_C_AT_9));
+
+    List<Event> actual = index.eventsFor(PERSON_A);
+    List<Event> expected = Arrays.asList(EVENT_AB_AT_8, EVENT_A_AT_10);
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertTrue(index.eventsFor("Nobody").isEmpty());
+  }
+
+  @Test
+  public void sharedEventsAreOnlyReturnedOnce() {
+    CalendarIndex index =
+        new CalendarIndex(Arrays.asList(EVENT_A_AT_10, EVENT_AB_AT_8, EVENT_C_AT_9));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<Event> actual = index.eventsFor(request);
+
+    Assert.assertEquals(2, actual.size());
+    Assert.assertTrue(actual.contains(EVENT_A_AT_10));
+    Assert.assertTrue(actual.contains(EVENT_AB_AT_8));
+  }
+
+  @Test
+  public void indexedQueryMatchesFullScan() {
+    // Every request over the sample calendar should get the same answer whether the query sees
+    // the whole calendar or only the events the index picks out.
+    List<Event> events = Arrays.asList(Events.events);
+    CalendarIndex index = new CalendarIndex(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Amelia", "Logan"), 30);
+    request.addOptionalAttendee("Isabella");
+    request.addOptionalAttendee("Oliver");
+
+    Collection<TimeRange> expected = query.query(events, request);
+    Collection<TimeRange> actual = query.query(index.eventsFor(request), request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void addAndRemoveEvents() {
+    CalendarIndex index = new CalendarIndex();
+    index.addEvent(EVENT_A_AT_10);
+    index.addEvent(EVENT_AB_AT_8);
+
+    Assert.assertEquals(Arrays.asList(EVENT_AB_AT_8, EVENT_A_AT_10), index.eventsFor(PERSON_A));
+
+    Assert.assertTrue(index.removeEvent(EVENT_AB_AT_8));
+    Assert.assertFalse(index.removeEvent(EVENT_C_AT_9));
+
+    Assert.assertEquals(1, index.size());
+    Assert.assertEquals(Arrays.asList(EVENT_A_AT_10), index.eventsFor(PERSON_A));
+    Assert.assertTrue(index.eventsFor(PERSON_B).isEmpty());
+  }
+
+  @Test
+  public void removeEventWithNoLength() {
+    // The event with no length never shows in the busy times, but Person A still attends it after
+    // their other event is removed.
+    Event empty =
+        new Event(
+            "Event 1",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A));
+    CalendarIndex index = new CalendarIndex(Arrays.asList(empty, EVENT_A_AT_10));
+
+    Assert.assertTrue(index.removeEvent(EVENT_A_AT_10));
+    Assert.assertEquals(Arrays.asList(empty), index.eventsFor(PERSON_A));
+    Assert.assertTrue(index.getBusyTimes(PERSON_A, TimeRange.WHOLE_DAY).isEmpty());
+
+    Assert.assertTrue(index.removeEvent(empty));
+    Assert.assertEquals(0, index.size());
+    Assert.assertTrue(index.eventsFor(PERSON_A).isEmpty());
+  }
+
+  @Test
+  public void busyTimesFollowEdits() {
+    // Events : |--A--|
+    //             |--A--|
+    // Day    : |---------------------|
+    //
+    // The overlapping events read as one busy time until one of them is removed.
+    Event first =
+        new Event(
+            "Event 1",
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A));
+    Event second =
+        new Event(
+            "Event 2",
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A));
+    CalendarIndex index = new CalendarIndex(Arrays.asList(first, second));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false)),
+        index.getBusyTimes(PERSON_A, TimeRange.WHOLE_DAY));
+
+    index.removeEvent(first);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false)),
+        index.getBusyTimes(PERSON_A, TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void queryReadsBusyTimesAfterEdits() {
+    CalendarIndex index = new CalendarIndex(Arrays.asList(EVENT_A_AT_10, EVENT_AB_AT_8));
+    index.addEvent(EVENT_C_AT_9);
+    index.removeEvent(EVENT_A_AT_10);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_C), DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected =
+        query.query(Arrays.asList(EVENT_AB_AT_8, EVENT_C_AT_9), request);
+    Collection<TimeRange> actual = query.query(index, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void mandatoryOnlyQueryMatchesEvents() {
+    // Requests without optional attendees are answered from the calendar's busy minute bitmaps.
+    List<Event> events = Arrays.asList(Events.events);
+    CalendarIndex index = new CalendarIndex(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Amelia", "Logan", "Noah"), 30);
+
+    Collection<TimeRange> expected = query.query(events, request);
+    Collection<TimeRange> actual = query.query(index, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+}
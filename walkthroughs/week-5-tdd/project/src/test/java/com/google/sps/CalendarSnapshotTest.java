@@ -0,0 +1,174 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarSnapshotTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final List<Event> EVENTS =
+      Arrays.asList(
+          new Event(
+              "Event 1",
+              TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+              Arrays.asList(PERSON_A, PERSON_B)),
+          new Event(
+              "Event 2",
+              TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+              Arrays.asList(PERSON_A)),
+          new Event(
+              "Événement 3",
+              TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+              Arrays.asList(PERSON_A)),
+          new Event(
+              "Event 1",
+              TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+              Collections.<String>emptyList()));
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private CalendarSnapshot snapshotOf(List<Event> events) throws IOException {
+    Path path = folder.getRoot().toPath().resolve("calendar.snapshot");
+    CalendarSnapshot.write(new EventStore(events), path);
+    return CalendarSnapshot.open(path);
+  }
+
+  @Test
+  public void eventsReadBackEqual() throws IOException {
+    CalendarSnapshot snapshot = snapshotOf(EVENTS);
+
+    Assert.assertEquals(EVENTS, snapshot);
+    Assert.assertEquals(2, snapshot.getAttendeeCount());
+  }
+
+  @Test
+  public void busyTimesAreMergedAndCut() throws IOException {
+    CalendarSnapshot snapshot = snapshotOf(EVENTS);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_1100AM, false)),
+        snapshot.getBusyTimes(PERSON_A, TimeRange.fromStartEnd(TIME_0830AM, 2000, false)));
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)),
+        snapshot.getBusyTimes(PERSON_B, TimeRange.WHOLE_DAY));
+    Assert.assertEquals(
+        Collections.emptyList(),
+        snapshot.getBusyTimes(PERSON_B, TimeRange.fromStartEnd(TIME_0900AM, 2000, false)));
+    Assert.assertEquals(
+        Collections.emptyList(), snapshot.getBusyTimes(PERSON_C, TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void emptyCalendar() throws IOException {
+    CalendarSnapshot snapshot = snapshotOf(Collections.<Event>emptyList());
+
+    Assert.assertEquals(0, snapshot.size());
+    Assert.assertEquals(
+        Collections.emptyList(), snapshot.getBusyTimes(PERSON_A, TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void openSnapshotSurvivesBeingReplaced() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("calendar.snapshot");
+    CalendarSnapshot.write(new EventStore(EVENTS), path);
+    CalendarSnapshot snapshot = CalendarSnapshot.open(path);
+
+    CalendarSnapshot.write(new EventStore(EVENTS.subList(0, 1)), path);
+
+    Assert.assertEquals(EVENTS, snapshot);
+    Assert.assertEquals(1, CalendarSnapshot.open(path).size());
+    Assert.assertFalse(Files.exists(path.resolveSibling("calendar.snapshot.tmp")));
+  }
+
+  @Test(expected = IOException.class)
+  public void otherFilesAreRejected() throws IOException {
+    Path path = folder.newFile("events.csv").toPath();
+    Files.write(
+        path, "title,start,end,attendees\nA,480,540,Person A\n".getBytes(StandardCharsets.UTF_8));
+
+    CalendarSnapshot.open(path);
+  }
+
+  @Test
+  public void queryMatchesCalendarIndex() throws IOException {
+    Random random = new Random(5);
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    for (int round = 0; round < 20; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 60; i++) {
+        List<String> attendees = new ArrayList<>();
+        for (int j = random.nextInt(4); j > 0; j--) {
+          attendees.add("Person " + random.nextInt(12));
+        }
+        events.add(
+            new Event(
+                "Event " + random.nextInt(5),
+                TimeRange.fromStartDuration(random.nextInt(2880), 1 + random.nextInt(120)),
+                attendees));
+      }
+      MeetingRequest request =
+          new MeetingRequest(Arrays.asList("Person 0", "Person 1"), 15 + random.nextInt(60));
+      request.addOptionalAttendee("Person 2");
+      request.addOptionalAttendee("Person 3");
+      TimeRange window = TimeRange.fromStartEnd(0, 2880, false);
+
+      Assert.assertEquals(
+          query.query(new CalendarIndex(events), request, window, 1, 20),
+          query.query(snapshotOf(events), request, window, 1, 20));
+    }
+  }
+
+  @Test
+  public void servesAsBusyTimeSource() throws IOException {
+    // The servlets only see a BusyTimeSource, whether it is an index or a snapshot.
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    BusyTimeSource index = new CalendarIndex(EVENTS);
+    BusyTimeSource snapshot = snapshotOf(EVENTS);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    request.addOptionalAttendee(PERSON_B);
+
+    Assert.assertEquals(query.query(index, request), query.query(snapshot, request));
+    Assert.assertArrayEquals(
+        AvailabilityHeatmap.countFree(
+            index, Arrays.asList(PERSON_A, PERSON_B), TimeRange.WHOLE_DAY, 60),
+        AvailabilityHeatmap.countFree(
+            snapshot, Arrays.asList(PERSON_A, PERSON_B), TimeRange.WHOLE_DAY, 60));
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventLoaderTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static ReadableByteChannel channel(String text) {
+    return Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static List<Event> load(EventLoader.Format format, String text) throws IOException {
+    List<Event> events = new ArrayList<>();
+    new EventLoader(format).load(channel(text), events);
+    return events;
+  }
+
+  @Test
+  public void csvWithHeaderAndQuotes() throws IOException {
+    String text =
+        "title,start,end,attendees\r\n"
+            + "\"Standup, \"\"daily\"\"\",480,540,Person A;Person B\r\n"
+            + "\r\n"
+            + "Review,540,600,\"Person B\"\r\n"
+            + "Focus,540,600,\n";
+
+    List<Event> actual = load(EventLoader.Format.CSV, text);
+
+    List<Event> expected =
+        Arrays.asList(
+            new Event(
+                "Standup, \"daily\"",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A, PERSON_B)),
+            new Event(
+                "Review",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_B)),
+            new Event(
+                "Focus",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Collections.<String>emptyList()));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void ndjsonWithEscapesAndOtherKeys() throws IOException {
+    String text =
+        "{\"title\": \"Standup \\u00e9\\\"1\\\"\", \"start\": 480, \"end\": 540,"
+            + " \"attendees\": [\"Person A\", \"Person B\"]}\n"
+            + "{\"id\": {\"a\": [1, \"}\"]}, \"attendees\": [], \"end\": 600, \"start\": 540,"
+            + " \"title\": \"Review\"}";
+
+    List<Event> actual = load(EventLoader.Format.NDJSON, text);
+
+    List<Event> expected =
+        Arrays.asList(
+            new Event(
+                "Standup é\"1\"",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A, PERSON_B)),
+            new Event(
+                "Review",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Collections.<String>emptyList()));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void namesAreShared() throws IOException {
+    EventLoader loader = new EventLoader(EventLoader.Format.CSV);
+    List<Event> events = new ArrayList<>();
+
+    loader.load(channel("A,480,540,Person A\nB,540,600,Person A\n"), events);
+
+    Assert.assertSame(
+        events.get(0).getAttendees().iterator().next(),
+        events.get(1).getAttendees().iterator().next());
+    Assert.assertEquals(3, loader.getNameCount());
+  }
+
+  @Test
+  public void linesSpanningReadsAreJoined() throws IOException {
+    // Long enough to need many reads, with lines that do not line up with them.
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      text.append("Event ").append(i).append(',').append(i % 1440).append(',');
+      text.append(i % 1440 + 1).append(",Person ").append(i % 7).append('\n');
+    }
+    EventLoader loader = new EventLoader(EventLoader.Format.CSV);
+    List<Event> events = new ArrayList<>();
+    final List<Long> progress = new ArrayList<>();
+    loader.setProgress(
+        new EventLoader.Progress() {
+          @Override
+          public void loaded(EventLoader.Stats stats) {
+            progress.add(stats.getEvents());
+          }
+        },
+        5000);
+
+    EventLoader.Stats stats = loader.load(channel(text.toString()), events);
+
+    Assert.assertEquals(20000, stats.getEvents());
+    Assert.assertEquals(text.length(), stats.getBytes());
+    Assert.assertEquals(Arrays.asList(5000L, 10000L, 15000L, 20000L), progress);
+    Assert.assertEquals(
+        new Event(
+            "Event 12345",
+            TimeRange.fromStartDuration(12345 % 1440, 1),
+            Arrays.asList("Person " + 12345 % 7)),
+        events.get(12345));
+  }
+
+  @Test
+  public void badLineIsNamed() throws IOException {
+    try {
+      load(EventLoader.Format.CSV, "A,480,540,Person A\nB,540,soon,Person A\n");
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals("Line 2: expected a number", e.getMessage());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void endBeforeStartIsRejected() throws IOException {
+    load(EventLoader.Format.NDJSON, "{\"title\": \"A\", \"start\": 540, \"end\": 480}");
+  }
+}
@@ -0,0 +1,123 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Test
+  public void eventsReadBackEqual() {
+    List<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A, PERSON_B)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Collections.<String>emptyList()),
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_B)));
+
+    EventStore store = new EventStore(events);
+
+    Assert.assertEquals(events, store);
+    Assert.assertEquals(2, store.getTitleCount());
+    Assert.assertEquals(2, store.getAttendeeCount());
+  }
+
+  @Test
+  public void loaderFillsStore() throws IOException {
+    EventStore store = new EventStore();
+    String text = "A,480,540,Person A;Person B\nB,540,600,Person A\n";
+
+    new EventLoader(EventLoader.Format.CSV)
+        .load(
+            Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))),
+            store);
+
+    Assert.assertEquals(2, store.size());
+    Assert.assertEquals(
+        new Event(
+            "B",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)),
+        store.get(1));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void eventsCannotBeReplaced() {
+    EventStore store = new EventStore();
+    Event event = new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A));
+    store.add(event);
+
+    store.set(0, event);
+  }
+
+  @Test
+  public void queryMatchesQueryOverEvents() {
+    Random random = new Random(3);
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    for (int round = 0; round < 50; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        List<String> attendees = new ArrayList<>();
+        for (int j = random.nextInt(4); j > 0; j--) {
+          attendees.add("Person " + random.nextInt(10));
+        }
+        events.add(
+            new Event(
+                "Event " + i,
+                TimeRange.fromStartDuration(random.nextInt(2880), 1 + random.nextInt(120)),
+                attendees));
+      }
+      MeetingRequest request =
+          new MeetingRequest(Arrays.asList("Person 0", "Person 1"), 15 + random.nextInt(60));
+      request.addOptionalAttendee("Person 2");
+      request.addOptionalAttendee("Person 3");
+      // Not in any event.
+      request.addOptionalAttendee("Person 99");
+      TimeRange window = TimeRange.fromStartEnd(0, 2880, false);
+
+      Assert.assertEquals(
+          query.query(events, request, window, 5, 10),
+          query.query(new EventStore(events), request, window, 5, 10));
+    }
+  }
+}
@@ -17,15 +17,44 @@ package com.google.sps;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.junit.runners.JUnit4;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
 
 /** */
-@RunWith(JUnit4.class)
+@RunWith(Parameterized.class)
 public final class FindMeetingQueryTest {
+  // Every test is run once for each engine, since they must all give the same answers. The
+  // parallel engine is also run with a threshold of one event so that it always splits up the
+  // calendar.
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> engines() {
+    return Arrays.asList(
+        new Object[][] {
+          {"DAY_ARRAY", new FindMeetingQuery(FindMeetingQuery.Engine.DAY_ARRAY)},
+          {"SWEEP_LINE", new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE)},
+          {
+            "PARALLEL_SWEEP_LINE",
+            new FindMeetingQuery(
+                FindMeetingQuery.Engine.PARALLEL_SWEEP_LINE,
+                new AttendeeDictionary(),
+                ForkJoinPool.commonPool(),
+                /* parallelThreshold= */ 1)
+          },
+        });
+  }
+
+  @Parameter(0)
+  public String engineName;
+
+  @Parameter(1)
+  public FindMeetingQuery engineQuery;
+
   private static final Collection<Event> NO_EVENTS = Collections.emptySet();
   private static final Collection<String> NO_ATTENDEES = Collections.emptySet();
 
@@ -56,7 +85,7 @@ public final class FindMeetingQueryTest {
 
   @Before
   public void setUp() {
-    query = new FindMeetingQuery();
+    query = engineQuery;
   }
 
   @Test
@@ -563,5 +592,98 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void optionalConflictBeforeMandatoryConflict() {
+    System.out.println(Thread.currentThread().getStackTrace()[1].getMethodName());
+    // The optional attendee's event comes first, but the mandatory attendee's event inside of it
+    // must still block that time.
+    //
+    // Events  :       |-----B-----|
+    //                    |--A--|
+    // Day     : |---------------------|
+    // Options : |--1--|           |-2-|
+
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_B)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeDoubleBookedAllDay() {
+    System.out.println(Thread.currentThread().getStackTrace()[1].getMethodName());
+    // The optional attendee is in two events that last all day, so they can never attend and the
+    // whole day should be returned for the mandatory attendee.
+    //
+    // Events  : |----------B----------|
+    //           |----------B----------|
+    // Day     : |---------------------|
+    // Options : |----------1----------|
+
+    Collection<Event> events =
+        Arrays.asList(
+            new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)),
+            new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void shortGapsAroundMandatoryConflictAreNotJoined() {
+    System.out.println(Thread.currentThread().getStackTrace()[1].getMethodName());
+    // Neither gap is long enough on its own, and the mandatory attendee's event between them means
+    // they cannot be joined into one time either.
+    //
+    // Events  : |----A----|  |-A-|  |----A----|
+    // Day     : |---------------------------------|
+    // Options :
+
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected = Arrays.asList();
+
+    Assert.assertEquals(expected, actual);
+  }
+}
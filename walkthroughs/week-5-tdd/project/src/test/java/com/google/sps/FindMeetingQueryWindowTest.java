@@ -0,0 +1,286 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for the {@code FindMeetingQuery.query} overloads that take a window or a limit. */
+@RunWith(JUnit4.class)
+public final class FindMeetingQueryWindowTest {
+  private static final Collection<Event> NO_EVENTS = Collections.emptySet();
+
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int MINS_IN_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0100PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_7_MINUTES = 7;
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final TimeRange TWO_DAYS = TimeRange.fromStartDuration(0, 2 * MINS_IN_DAY);
+
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery();
+  }
+
+  @Test
+  public void eventsOnSeveralDays() {
+    // Events  :    |A|          |A|
+    // Window  : |---day 1---||---day 2---|
+    // Options : |1-|  |-----2-----| |-3-|
+
+    int tomorrow0900AM = MINS_IN_DAY + TIME_0900AM;
+    int tomorrow0930AM = MINS_IN_DAY + TIME_0930AM;
+
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartDuration(tomorrow0900AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request, TWO_DAYS);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(0, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, tomorrow0900AM, false),
+            TimeRange.fromStartEnd(tomorrow0930AM, TWO_DAYS.end(), false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void windowIgnoresEventsOutsideOfIt() {
+    // Only the working day is searched, so the early event does not matter.
+    //
+    // Events  : |A|       |--A--|
+    // Window  :     |-----------------|
+    // Options :     |--1--|     |--2--|
+
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartDuration(0, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_1200PM, TIME_0100PM, false),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    TimeRange workingDay = TimeRange.fromStartEnd(TIME_0800AM, TIME_0500PM, false);
+
+    Collection<TimeRange> actual = query.query(events, request, workingDay);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_1200PM, false),
+            TimeRange.fromStartEnd(TIME_0100PM, TIME_0500PM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void startsAreMovedToGranularity() {
+    // The free time after the event starts at 8:07, so with a 15 minute granularity the option
+    // should start at 8:15 instead.
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartDuration(TIME_0800AM, DURATION_7_MINUTES),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request, TimeRange.WHOLE_DAY, 15);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0800AM + 15, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void granularityCanRuleOutAnOption() {
+    // There is exactly 30 minutes free from 8:07, but no 30 minutes that start on a multiple of 15.
+    //
+    // Events  : |--A--| |--A--|
+    // Options :
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM + 7, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0830AM + 7, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM + 7, DURATION_30_MINUTES)),
+        query.query(events, request, TimeRange.WHOLE_DAY, 1));
+    Assert.assertEquals(Arrays.asList(), query.query(events, request, TimeRange.WHOLE_DAY, 15));
+  }
+
+  @Test
+  public void wholeDayWindowMatchesDayQuery() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList("Amelia", "Logan"), DURATION_30_MINUTES);
+    request.addOptionalAttendee("Isabella");
+    Collection<Event> events = Arrays.asList(Events.events);
+
+    Assert.assertEquals(
+        query.query(events, request), query.query(events, request, TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void noEventsReturnsWholeWindow() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(NO_EVENTS, request, TWO_DAYS);
+    Collection<TimeRange> expected = Arrays.asList(TWO_DAYS);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void granularityMustBePositive() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    query.query(NO_EVENTS, request, TimeRange.WHOLE_DAY, 0);
+  }
+
+  @Test
+  public void limitReturnsEarliestOptions() {
+    // Events  :       |--A--|     |--A--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request, 2);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void limitKeepsSearchingForOptionalAttendees() {
+    // The first option does not work for B, so the search must go on to find the later option
+    // that works for everyone.
+    //
+    // Events  : |------B------|
+    //                 |A|
+    // Day     : |---------------------|
+    // Options :             |----1----|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0930AM, false),
+                Arrays.asList(PERSON_B)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.query(events, request, 1);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void limitWithWindowFindsFirstSlot() {
+    // Person A is busy all of the first day, so the first slot is at the start of the second.
+    Collection<Event> events =
+        Arrays.asList(new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request, TWO_DAYS, 15, 1);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(MINS_IN_DAY, TWO_DAYS.end(), false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void limitMatchesUnlimitedQuery() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Amelia"), DURATION_30_MINUTES);
+    request.addOptionalAttendee("Logan");
+    request.addOptionalAttendee("Isabella");
+    Collection<Event> events = Arrays.asList(Events.events);
+
+    Collection<TimeRange> all = query.query(events, request);
+    for (int limit = 1; limit <= all.size() + 1; limit++) {
+      Collection<TimeRange> limited = query.query(events, request, limit);
+      Assert.assertEquals(all.stream().limit(limit).collect(Collectors.toList()), limited);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void limitMustBePositive() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    query.query(NO_EVENTS, request, 0);
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LatencyHistogramTest {
+  @Test
+  public void smallValuesHaveABucketEach() {
+    for (int value = 0; value < 8; value++) {
+      Assert.assertEquals(value, LatencyHistogram.bucketOf(value));
+      Assert.assertEquals(value, LatencyHistogram.highestValueOf(value));
+    }
+  }
+
+  @Test
+  public void everyValueFallsInsideItsBucket() {
+    long[] values = {8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE};
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      Assert.assertTrue(value <= LatencyHistogram.highestValueOf(bucket));
+      Assert.assertTrue(value > LatencyHistogram.highestValueOf(bucket - 1));
+    }
+  }
+
+  @Test
+  public void bucketsAreWithinAnEighthOfTheirValues() {
+    for (long value = 8; value < 100000; value++) {
+      long highest = LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(value));
+      Assert.assertTrue(highest - value <= value / 8);
+    }
+  }
+
+  @Test
+  public void emptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getMean(), 0);
+    Assert.assertEquals(0, histogram.getMax());
+    Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void percentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int value = 1; value <= 1000; value++) {
+      histogram.record(value);
+    }
+
+    Assert.assertEquals(1000, histogram.getCount());
+    Assert.assertEquals(500.5, histogram.getMean(), 1e-9);
+    Assert.assertEquals(1000, histogram.getMax());
+    Assert.assertEquals(1, histogram.getValueAtPercentile(0));
+    assertWithinAnEighth(500, histogram.getValueAtPercentile(50));
+    assertWithinAnEighth(990, histogram.getValueAtPercentile(99));
+    Assert.assertEquals(1000, histogram.getValueAtPercentile(100));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void percentileAboveHundred() {
+    new LatencyHistogram().getValueAtPercentile(101);
+  }
+
+  @Test
+  public void recordsFromManyThreads() throws InterruptedException {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] =
+          new Thread() {
+            @Override
+            public void run() {
+              for (int value = 0; value < 10000; value++) {
+                histogram.record(value);
+              }
+            }
+          };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertEquals(40000, histogram.getCount());
+    Assert.assertEquals(9999, histogram.getMax());
+  }
+
+  private static void assertWithinAnEighth(long expected, long actual) {
+    Assert.assertTrue(actual + " is not near " + expected, actual >= expected);
+    Assert.assertTrue(actual + " is not near " + expected, actual <= expected + expected / 8);
+  }
+}
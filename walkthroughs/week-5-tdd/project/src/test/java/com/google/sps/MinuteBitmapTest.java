@@ -0,0 +1,60 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MinuteBitmapTest {
+  @Test
+  public void setAndClearAcrossWords() {
+    long[] bits = new long[MinuteBitmap.WORDS];
+    MinuteBitmap.set(bits, 60, 200);
+    MinuteBitmap.clear(bits, 100, 130);
+
+    Assert.assertEquals(60, MinuteBitmap.nextSetBit(bits, 0));
+    Assert.assertEquals(100, MinuteBitmap.nextClearBit(bits, 60));
+    Assert.assertEquals(130, MinuteBitmap.nextSetBit(bits, 100));
+    Assert.assertEquals(200, MinuteBitmap.nextClearBit(bits, 130));
+    Assert.assertEquals(MinuteBitmap.MINUTES, MinuteBitmap.nextSetBit(bits, 200));
+  }
+
+  @Test
+  public void wholeDay() {
+    long[] bits = new long[MinuteBitmap.WORDS];
+    MinuteBitmap.set(bits, 0, MinuteBitmap.MINUTES);
+
+    Assert.assertEquals(MinuteBitmap.MINUTES, MinuteBitmap.nextClearBit(bits, 0));
+    Assert.assertEquals(MinuteBitmap.MINUTES - 1, MinuteBitmap.nextSetBit(bits, 1439));
+  }
+
+  @Test
+  public void busyTimelineKeepsBitmapInStep() {
+    BusyTimeline timeline = new BusyTimeline();
+    timeline.add(TimeRange.fromStartEnd(10, 50, false));
+    timeline.add(TimeRange.fromStartEnd(40, 80, false));
+    timeline.remove(TimeRange.fromStartEnd(10, 50, false));
+
+    long[] bits = new long[MinuteBitmap.WORDS];
+    timeline.addBusyMinutes(bits);
+
+    Assert.assertEquals(40, MinuteBitmap.nextSetBit(bits, 0));
+    Assert.assertEquals(80, MinuteBitmap.nextClearBit(bits, 40));
+  }
+}
@@ -0,0 +1,114 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class NormalizedCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Test
+  public void duplicateEventsAreCollapsed() {
+    Event event =
+        new Event(
+            "Event 1",
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A, PERSON_B));
+
+    NormalizedCalendar calendar = NormalizedCalendar.normalize(Arrays.asList(event, event));
+
+    Assert.assertEquals(1, calendar.getDuplicateEventCount());
+    Assert.assertEquals(4, calendar.getInputIntervalCount());
+    Assert.assertEquals(2, calendar.getIntervalCount());
+    Assert.assertEquals(
+        Arrays.asList(
+            new Event(
+                NormalizedCalendar.BUSY,
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A, PERSON_B))),
+        calendar.getEvents());
+  }
+
+  @Test
+  public void overlappingAndBackToBackEventsAreMerged() {
+    // Events  : |--A--|
+    //              |--A--|
+    //                    |--A--|
+    //           |--B--|
+    // Result  : |-----A------|
+    //           |--B--|
+    NormalizedCalendar calendar =
+        NormalizedCalendar.normalize(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                    Arrays.asList(PERSON_A, PERSON_B)),
+                new Event(
+                    "Event 2",
+                    TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+                    Arrays.asList(PERSON_A)),
+                new Event(
+                    "Event 3",
+                    TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                    Arrays.asList(PERSON_A))));
+
+    List<Event> expected =
+        Arrays.asList(
+            new Event(
+                NormalizedCalendar.BUSY,
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_B)),
+            new Event(
+                NormalizedCalendar.BUSY,
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(expected, calendar.getEvents());
+    Assert.assertEquals(2, calendar.getEliminatedIntervalCount());
+  }
+
+  @Test
+  public void queryOnSampleCalendarIsUnchanged() {
+    List<Event> events = Arrays.asList(Events.events);
+    NormalizedCalendar calendar = NormalizedCalendar.normalize(events);
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Amelia", "Logan"), 30);
+    request.addOptionalAttendee("Isabella");
+    request.addOptionalAttendee("Oliver");
+
+    // Both count each busy person once, so the answers match.
+    Collection<TimeRange> expected = query.query(new CalendarIndex(events), request);
+    Collection<TimeRange> actual = query.query(calendar.getEvents(), request);
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertTrue(calendar.getEvents().size() < events.size());
+  }
+}
@@ -0,0 +1,196 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class OptimalMeetingQueryTest {
+  private static final Collection<Event> NO_EVENTS = Collections.emptySet();
+
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private static final TimeRange TWO_HOURS = TimeRange.fromStartDuration(0, 120);
+
+  private OptimalMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new OptimalMeetingQuery();
+  }
+
+  private static Event event(String title, int start, int end, String... attendees) {
+    return new Event(title, TimeRange.fromStartEnd(start, end, false), Arrays.asList(attendees));
+  }
+
+  @Test
+  public void noOptionalAttendeesReturnsFreeTimes() {
+    // Events  :       |--A--|
+    // Window  : |-----------------|
+    // Options : |--1--|     |--2--|
+    Collection<Event> events = Arrays.asList(event("Event 1", 30, 60, PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual = query.query(events, request, TWO_HOURS);
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(0, 30, false), TimeRange.fromStartEnd(60, 120, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void findsTimesAcrossChangingOptionalConflicts() {
+    // Events  : |--B--|
+    //                       |---C---|
+    // Window  : |-------------------|
+    //
+    // No hour works for both B and C. Starting at 0 works for C, and starting anywhere from 30 to
+    // 60 works for B, even though the set of busy people changes inside both times.
+    Collection<Event> events =
+        Arrays.asList(event("Event 1", 0, 30, PERSON_B), event("Event 2", 60, 120, PERSON_C));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<OptimalMeetingQuery.Slot> actual = query.queryWithAttendees(events, request, TWO_HOURS);
+
+    Assert.assertEquals(2, actual.size());
+    Assert.assertEquals(TimeRange.fromStartEnd(0, 60, false), actual.get(0).getWhen());
+    Assert.assertEquals(Collections.singleton(PERSON_C), actual.get(0).getOptionalAttendees());
+    Assert.assertEquals(TimeRange.fromStartEnd(30, 120, false), actual.get(1).getWhen());
+    Assert.assertEquals(Collections.singleton(PERSON_B), actual.get(1).getOptionalAttendees());
+  }
+
+  @Test
+  public void doubleBookedOptionalAttendeeCountsOnce() {
+    // Events  : |--B--|
+    //           |--B--|
+    //                 |--C--|
+    // Window  : |-------------------|
+    //
+    // B's two events only keep B away once, so B and C tie and both of their times are returned.
+    Collection<Event> events =
+        Arrays.asList(
+            event("Event 1", 0, 60, PERSON_B),
+            event("Event 2", 0, 60, PERSON_B),
+            event("Event 3", 60, 120, PERSON_C));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<TimeRange> actual = query.query(events, request, TWO_HOURS);
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(0, 60, false), TimeRange.fromStartEnd(60, 120, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void meetingLongerThanWindow() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 200);
+
+    Assert.assertTrue(query.query(NO_EVENTS, request, TWO_HOURS).isEmpty());
+  }
+
+  @Test
+  public void matchesEveryStartChecked() {
+    // Compares against checking each start time on its own, for many optional attendees.
+    Random random = new Random(14);
+    String[] people = new String[150];
+    for (int i = 0; i < people.length; i++) {
+      people[i] = "Person " + i;
+    }
+
+    for (int round = 0; round < 20; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 300; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.end());
+        int end = Math.min(start + 1 + random.nextInt(120), TimeRange.WHOLE_DAY.end());
+        events.add(
+            event(
+                "Event " + i,
+                start,
+                end,
+                people[random.nextInt(people.length)],
+                people[random.nextInt(people.length)]));
+      }
+
+      MeetingRequest request =
+          new MeetingRequest(Arrays.asList(people[0]), 15 + random.nextInt(60));
+      for (int i = 1; i < people.length; i++) {
+        request.addOptionalAttendee(people[i]);
+      }
+
+      Assert.assertEquals(checkEveryStart(events, request), query.query(events, request));
+    }
+  }
+
+  private static List<TimeRange> checkEveryStart(List<Event> events, MeetingRequest request) {
+    int duration = (int) request.getDuration();
+    int lastStart = TimeRange.WHOLE_DAY.end() - duration;
+
+    int[] available = new int[lastStart + 1];
+    int max = Integer.MIN_VALUE;
+    for (int start = 0; start <= lastStart; start++) {
+      TimeRange meeting = TimeRange.fromStartDuration(start, duration);
+      Set<String> busy = new HashSet<>();
+      for (Event event : events) {
+        if (event.getWhen().overlaps(meeting)) {
+          busy.addAll(event.getAttendees());
+        }
+      }
+
+      if (!Collections.disjoint(busy, request.getAttendees())) {
+        available[start] = Integer.MIN_VALUE;
+        continue;
+      }
+      busy.retainAll(request.getOptionalAttendees());
+      available[start] = request.getOptionalAttendees().size() - busy.size();
+      max = Math.max(max, available[start]);
+    }
+
+    List<TimeRange> ranges = new ArrayList<>();
+    for (int start = 0; start <= lastStart; start++) {
+      if (available[start] != max || max == Integer.MIN_VALUE) {
+        continue;
+      }
+      int end = start;
+      while (end + 1 <= lastStart && available[end + 1] == max) {
+        end++;
+      }
+      ranges.add(TimeRange.fromStartEnd(start, end + duration, false));
+      start = end;
+    }
+    return ranges;
+  }
+}
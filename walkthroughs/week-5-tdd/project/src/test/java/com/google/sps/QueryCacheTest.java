@@ -0,0 +1,148 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final Collection<TimeRange> ANSWER = Arrays.asList(TimeRange.WHOLE_DAY);
+
+  private long now;
+  private int loads;
+  private QueryCache.Loader loader;
+
+  @Before
+  public void setUp() {
+    now = 0;
+    loads = 0;
+    loader =
+        new QueryCache.Loader() {
+          @Override
+          public Collection<TimeRange> load(MeetingRequest request) {
+            loads++;
+            return ANSWER;
+          }
+        };
+  }
+
+  private QueryCache newCache(int maxEntries) {
+    return new QueryCache(
+        maxEntries,
+        TimeUnit.MINUTES.toNanos(1),
+        new QueryCache.Ticker() {
+          @Override
+          public long read() {
+            return now;
+          }
+        });
+  }
+
+  @Test
+  public void sameRequestInAnyOrderIsAHit() {
+    QueryCache cache = newCache(10);
+
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), 30);
+
+    Assert.assertEquals(ANSWER, cache.get(first, loader));
+    Assert.assertEquals(ANSWER, cache.get(second, loader));
+
+    Assert.assertEquals(1, loads);
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void differentDurationIsAMiss() {
+    QueryCache cache = newCache(10);
+
+    cache.get(new MeetingRequest(Arrays.asList(PERSON_A), 30), loader);
+    cache.get(new MeetingRequest(Arrays.asList(PERSON_A), 60), loader);
+
+    Assert.assertEquals(2, loads);
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    QueryCache cache = newCache(2);
+    MeetingRequest a = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    MeetingRequest b = new MeetingRequest(Arrays.asList(PERSON_B), 30);
+    MeetingRequest c = new MeetingRequest(Arrays.asList(PERSON_C), 30);
+
+    cache.get(a, loader);
+    cache.get(b, loader);
+    cache.get(a, loader);
+    cache.get(c, loader);
+
+    Assert.assertEquals(1, cache.getEvictions());
+    Assert.assertEquals(2, cache.size());
+
+    // B was used least recently, so it has to be loaded again while A does not.
+    cache.get(a, loader);
+    cache.get(b, loader);
+    Assert.assertEquals(4, loads);
+  }
+
+  @Test
+  public void expiredAnswerIsLoadedAgain() {
+    QueryCache cache = newCache(10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+
+    cache.get(request, loader);
+    now += TimeUnit.MINUTES.toNanos(2);
+    cache.get(request, loader);
+
+    Assert.assertEquals(2, loads);
+    Assert.assertEquals(1, cache.getEvictions());
+  }
+
+  @Test
+  public void calendarEditsDropAnswersOfTheirAttendees() {
+    QueryCache cache = newCache(10);
+    CalendarIndex calendar = new CalendarIndex();
+    calendar.addListener(cache);
+
+    MeetingRequest withA = new MeetingRequest(Arrays.asList(PERSON_B), 30);
+    withA.addOptionalAttendee(PERSON_A);
+    MeetingRequest withoutA = new MeetingRequest(Arrays.asList(PERSON_C), 30);
+    cache.get(withA, loader);
+    cache.get(withoutA, loader);
+
+    calendar.addEvent(
+        new Event(
+            "Event 1",
+            TimeRange.fromStartDuration(0, 30),
+            Collections.singletonList(PERSON_A)));
+
+    Assert.assertEquals(1, cache.getInvalidations());
+    cache.get(withA, loader);
+    cache.get(withoutA, loader);
+    Assert.assertEquals(3, loads);
+  }
+}
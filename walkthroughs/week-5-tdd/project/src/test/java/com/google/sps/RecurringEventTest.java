@@ -0,0 +1,159 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int DAY = 24 * 60;
+  private static final int WEEK = 7 * DAY;
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0100PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+
+  private static final TimeRange STANDUP = TimeRange.fromStartDuration(TIME_0900AM, 30);
+
+  private static List<TimeRange> times(Collection<Event> events) {
+    List<TimeRange> times = new ArrayList<>();
+    for (Event event : events) {
+      times.add(event.getWhen());
+    }
+    return times;
+  }
+
+  @Test
+  public void dailyOccurrencesInWindow() {
+    RecurringEvent standup =
+        new RecurringEvent(
+            "Standup", STANDUP, Arrays.asList(PERSON_A), RecurringEvent.Frequency.DAILY, 1);
+
+    // The first occurrence only overlaps the window by its last minute, and the third starts as
+    // the window ends.
+    TimeRange window = TimeRange.fromStartEnd(TIME_0930AM - 1, 2 * DAY + TIME_0900AM, false);
+    Collection<Event> occurrences = standup.occurrencesIn(window);
+
+    Assert.assertEquals(2, occurrences.size());
+    Assert.assertEquals(
+        Arrays.asList(STANDUP, TimeRange.fromStartDuration(DAY + TIME_0900AM, 30)),
+        times(occurrences));
+  }
+
+  @Test
+  public void weeklyIntervalSkipsWeeks() {
+    RecurringEvent review =
+        new RecurringEvent(
+            "Review", STANDUP, Arrays.asList(PERSON_A), RecurringEvent.Frequency.WEEKLY, 2);
+
+    Collection<Event> occurrences =
+        review.occurrencesIn(TimeRange.fromStartDuration(TIME_0930AM, 5 * WEEK));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartDuration(2 * WEEK + TIME_0900AM, 30),
+            TimeRange.fromStartDuration(4 * WEEK + TIME_0900AM, 30)),
+        times(occurrences));
+  }
+
+  @Test
+  public void exceptionsAndUntilAreRespected() {
+    RecurringEvent standup =
+        new RecurringEvent(
+            "Standup",
+            STANDUP,
+            Arrays.asList(PERSON_A),
+            RecurringEvent.Frequency.DAILY,
+            1,
+            3 * DAY + TIME_0900AM,
+            Arrays.asList(TIME_0900AM, 2 * DAY + TIME_0900AM));
+
+    Collection<Event> occurrences = standup.occurrencesIn(TimeRange.fromStartDuration(0, 10 * DAY));
+
+    Assert.assertEquals(1, occurrences.size());
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(DAY + TIME_0900AM, 30)), times(occurrences));
+  }
+
+  @Test
+  public void farWindowStartsAtItsFirstOccurrence() {
+    RecurringEvent standup =
+        new RecurringEvent(
+            "Standup", STANDUP, Arrays.asList(PERSON_A), RecurringEvent.Frequency.DAILY, 1);
+    int start = 1_000_000 * DAY;
+
+    Collection<Event> occurrences = standup.occurrencesIn(TimeRange.fromStartDuration(start, DAY));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(start + TIME_0900AM, 30)), times(occurrences));
+  }
+
+  @Test
+  public void multiDayQueryAvoidsEveryOccurrence() {
+    RecurringEvent standup =
+        new RecurringEvent(
+            "Standup", STANDUP, Arrays.asList(PERSON_A), RecurringEvent.Frequency.DAILY, 1);
+    Event lunch =
+        new Event(
+            "Lunch",
+            TimeRange.fromStartEnd(DAY + TIME_1200PM, DAY + TIME_0100PM, false),
+            Arrays.asList(PERSON_B));
+    TimeRange window = TimeRange.fromStartEnd(TIME_0900AM, DAY + TIME_0200PM, false);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30);
+
+    Collection<Event> events =
+        RecurringEvent.expand(Arrays.asList(lunch), Arrays.asList(standup), window);
+    Collection<TimeRange> actual = new FindMeetingQuery().query(events, request, window);
+
+    Assert.assertEquals(3, events.size());
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0930AM, DAY + TIME_0900AM, false),
+            TimeRange.fromStartEnd(DAY + TIME_0930AM, DAY + TIME_1200PM, false),
+            TimeRange.fromStartEnd(DAY + TIME_0100PM, DAY + TIME_0200PM, false)),
+        actual);
+  }
+
+  @Test
+  public void expandWithNoRecurringEventsIsTheEvents() {
+    Event event = new Event("Event", STANDUP, Arrays.asList(PERSON_A));
+
+    Collection<Event> events =
+        RecurringEvent.expand(
+            Arrays.asList(event), Collections.<RecurringEvent>emptyList(), TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(Arrays.asList(event), new ArrayList<>(events));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void intervalMustBePositive() {
+    new RecurringEvent(
+        "Standup", STANDUP, Arrays.asList(PERSON_A), RecurringEvent.Frequency.DAILY, 0);
+  }
+}
@@ -0,0 +1,292 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomMeetingQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PROJECTOR = "projector";
+
+  private static final Room SMALL = new Room("Small", 2, Collections.<String>emptyList());
+  private static final Room MEDIUM = new Room("Medium", 6, Arrays.asList(PROJECTOR));
+  private static final Room LARGE = new Room("Large", 20, Arrays.asList(PROJECTOR));
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int END_OF_DAY = TimeRange.END_OF_DAY;
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private RoomMeetingQuery query;
+  private RoomCalendar rooms;
+
+  @Before
+  public void setUp() {
+    query = new RoomMeetingQuery();
+    rooms = new RoomCalendar(Arrays.asList(LARGE, SMALL, MEDIUM));
+  }
+
+  private static List<TimeRange> times(List<RoomMeetingQuery.Slot> slots) {
+    List<TimeRange> times = new ArrayList<>();
+    for (RoomMeetingQuery.Slot slot : slots) {
+      times.add(slot.getWhen());
+    }
+    return times;
+  }
+
+  private static List<Room> rooms(List<RoomMeetingQuery.Slot> slots) {
+    List<Room> rooms = new ArrayList<>();
+    for (RoomMeetingQuery.Slot slot : slots) {
+      rooms.add(slot.getRoom());
+    }
+    return rooms;
+  }
+
+  @Test
+  public void smallestRoomThatFitsIsChosen() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 60);
+
+    List<RoomMeetingQuery.Slot> actual = query.query(new CalendarIndex(), rooms, request);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), times(actual));
+    Assert.assertEquals(Arrays.asList(SMALL), rooms(actual));
+  }
+
+  @Test
+  public void smallestRoomInATierIsChosen() {
+    // Both rooms are in the tier of 8 to 15 seats, and the bigger one was added first.
+    Room fifteen = new Room("Fifteen", 15, Collections.<String>emptyList());
+    Room eight = new Room("Eight", 8, Collections.<String>emptyList());
+    RoomCalendar sameTier = new RoomCalendar(Arrays.asList(fifteen, eight));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 60);
+
+    List<RoomMeetingQuery.Slot> actual =
+        query.query(
+            new CalendarIndex(), sameTier, request, 8, Collections.<String>emptyList());
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), times(actual));
+    Assert.assertEquals(Arrays.asList(eight), rooms(actual));
+  }
+
+  @Test
+  public void bookedRoomIsSwappedAndKeptWhileFree() {
+    // Small  :       |--|
+    // Medium :  |--|
+    // Slots  : |--S--|
+    //              |------L---------|
+    //
+    // Once Small is taken, the slot stays in Large even after Medium is free again.
+    rooms.addBooking("Small", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+    rooms.addBooking("Medium", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RoomMeetingQuery.Slot> actual = query.query(new CalendarIndex(), rooms, request);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM - DURATION_30_MINUTES + 1, END_OF_DAY, true)),
+        times(actual));
+    Assert.assertEquals(Arrays.asList(SMALL, LARGE), rooms(actual));
+  }
+
+  @Test
+  public void capacityAndEquipmentAreRequired() {
+    rooms.addBooking("Medium", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 60);
+
+    List<RoomMeetingQuery.Slot> actual =
+        query.query(new CalendarIndex(), rooms, request, 1, Arrays.asList(PROJECTOR));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0800AM - 60 + 1, END_OF_DAY, true)),
+        times(actual));
+    Assert.assertEquals(Arrays.asList(MEDIUM, LARGE), rooms(actual));
+  }
+
+  @Test
+  public void attendeesAndRoomsMustBothBeFree() {
+    // Person A : |--A--|
+    // Rooms    :          |--all--|
+    CalendarIndex calendar =
+        new CalendarIndex(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+                    Arrays.asList(PERSON_A))));
+    for (Room room : rooms.getRooms()) {
+      rooms.addBooking(room.getName(), TimeRange.fromStartEnd(TIME_0900AM, END_OF_DAY, true));
+    }
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RoomMeetingQuery.Slot> actual = query.query(calendar, rooms, request);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)), times(actual));
+  }
+
+  @Test
+  public void timesForTheMostOptionalAttendeesAreKept() {
+    // Person B : |--B--|
+    // Person C :       |-----C-----|
+    // Options  : |--1--|     1     |
+    CalendarIndex calendar =
+        new CalendarIndex(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+                    Arrays.asList(PERSON_B)),
+                new Event(
+                    "Event 2",
+                    TimeRange.fromStartEnd(TIME_1000AM, END_OF_DAY, true),
+                    Arrays.asList(PERSON_C))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<RoomMeetingQuery.Slot> actual = query.query(calendar, rooms, request);
+
+    // No time works for both, so every time that works for one of them is kept, and the meetings
+    // across 10am, which work for neither, are dropped.
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, END_OF_DAY, true)),
+        times(actual));
+    Assert.assertEquals(Arrays.asList(MEDIUM, MEDIUM), rooms(actual));
+  }
+
+  @Test
+  public void removedBookingFreesTheRoom() {
+    TimeRange booking = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+    rooms.addBooking("Small", booking);
+    rooms.addBooking("Small", booking);
+
+    Assert.assertTrue(rooms.removeBooking("Small", booking));
+    Assert.assertEquals(Arrays.asList(booking), rooms.getBusyTimes("Small", TimeRange.WHOLE_DAY));
+    Assert.assertTrue(rooms.removeBooking("Small", booking));
+    Assert.assertFalse(rooms.removeBooking("Small", booking));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 60);
+    List<RoomMeetingQuery.Slot> actual = query.query(new CalendarIndex(), rooms, request);
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), times(actual));
+  }
+
+  @Test
+  public void noRoomBigEnough() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 60);
+
+    List<RoomMeetingQuery.Slot> actual =
+        query.query(new CalendarIndex(), rooms, request, 21, Collections.<String>emptyList());
+
+    Assert.assertEquals(Collections.emptyList(), actual);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void roomNamesAreUnique() {
+    rooms.addRoom(new Room("Small", 4, Collections.<String>emptyList()));
+  }
+
+  @Test
+  public void matchesEveryRoomChecked() {
+    Random random = new Random(7);
+    for (int round = 0; round < 20; round++) {
+      // More than one block in some tiers.
+      List<Room> roomList = new ArrayList<>();
+      for (int i = 0; i < 150; i++) {
+        List<String> equipment =
+            random.nextBoolean() ? Arrays.asList(PROJECTOR) : Collections.<String>emptyList();
+        roomList.add(new Room("Room " + i, 1 + random.nextInt(20), equipment));
+      }
+      RoomCalendar roomCalendar = new RoomCalendar(roomList);
+      for (int i = 0; i < 600; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.end());
+        roomCalendar.addBooking(
+            "Room " + random.nextInt(roomList.size()),
+            TimeRange.fromStartDuration(start, 1 + random.nextInt(240)));
+      }
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        events.add(
+            new Event(
+                "Event " + i,
+                TimeRange.fromStartDuration(random.nextInt(1400), 1 + random.nextInt(120)),
+                Arrays.asList(random.nextBoolean() ? PERSON_A : PERSON_B)));
+      }
+      int people = 1 + random.nextInt(20);
+      List<String> equipment = Arrays.asList(PROJECTOR);
+      int duration = 1 + random.nextInt(90);
+      MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), duration);
+
+      List<RoomMeetingQuery.Slot> actual =
+          query.query(new CalendarIndex(events), roomCalendar, request, people, equipment);
+
+      boolean[] covered = new boolean[TimeRange.WHOLE_DAY.end()];
+      for (RoomMeetingQuery.Slot slot : actual) {
+        Room room = slot.getRoom();
+        Assert.assertTrue(room.fits(people, equipment));
+        TimeRange when = slot.getWhen();
+        Assert.assertTrue(isFree(events, roomCalendar, room, when));
+        // A slot starts in the smallest room that fits and is free.
+        TimeRange firstMeeting = TimeRange.fromStartDuration(when.start(), duration);
+        for (Room other : roomList) {
+          if (other.getCapacity() < room.getCapacity() && other.fits(people, equipment)) {
+            Assert.assertFalse(isFree(events, roomCalendar, other, firstMeeting));
+          }
+        }
+        for (int t = when.start(); t + duration <= when.end(); t++) {
+          covered[t] = true;
+        }
+      }
+      for (int t = 0; t + duration <= TimeRange.WHOLE_DAY.end(); t++) {
+        TimeRange when = TimeRange.fromStartDuration(t, duration);
+        boolean possible = false;
+        for (Room room : roomList) {
+          possible |= room.fits(people, equipment) && isFree(events, roomCalendar, room, when);
+        }
+        Assert.assertEquals("start " + t, possible, covered[t]);
+      }
+    }
+  }
+
+  private static boolean isFree(
+      List<Event> events, RoomCalendar roomCalendar, Room room, TimeRange when) {
+    for (Event event : events) {
+      if (event.getWhen().overlaps(when)) {
+        return false;
+      }
+    }
+    return roomCalendar.getBusyTimes(room.getName(), when).isEmpty();
+  }
+}
@@ -0,0 +1,192 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SchedulerMetricsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  // A and B are each busy once, and C is in an event nobody asks about.
+  private static final Collection<Event> EVENTS =
+      Arrays.asList(
+          new Event(
+              "Event 1",
+              TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+              Arrays.asList(PERSON_A)),
+          new Event(
+              "Event 2",
+              TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+              Arrays.asList(PERSON_B)),
+          new Event(
+              "Event 3",
+              TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+              Arrays.asList(PERSON_C)));
+
+  private SchedulerMetrics metrics;
+
+  @Before
+  public void setUp() {
+    metrics = new SchedulerMetrics();
+  }
+
+  @Test
+  public void nothingIsRecordedWithoutMetrics() {
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    query.query(EVENTS, new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertNull(query.getMetrics());
+  }
+
+  @Test
+  public void sweepLineQuery() {
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    query.setMetrics(metrics);
+
+    Collection<TimeRange> answer =
+        query.query(
+            EVENTS, new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+
+    Assert.assertEquals(1, metrics.getQueries());
+    Assert.assertEquals(3, metrics.getEventsScanned());
+    Assert.assertEquals(2, metrics.getEventsRelevant());
+    Assert.assertEquals(answer.size(), metrics.getCandidates());
+    Assert.assertEquals(1, metrics.getQueryNanos().getCount());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.CONFLICTS).getCount());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.SORT).getCount());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.SCAN).getCount());
+    Assert.assertEquals(0, metrics.getPhaseNanos(SchedulerMetrics.Phase.DAY_ARRAY).getCount());
+  }
+
+  @Test
+  public void dayArrayQueryWithOptionalAttendees() {
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.DAY_ARRAY);
+    query.setMetrics(metrics);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    query.query(EVENTS, request);
+
+    Assert.assertEquals(1, metrics.getQueries());
+    Assert.assertEquals(3, metrics.getEventsScanned());
+    Assert.assertEquals(2, metrics.getEventsRelevant());
+    // Before 8, between 9 and 10, and after 11 everyone can come. From 10 to 11 only A can.
+    Assert.assertEquals(4, metrics.getCandidates());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.CONFLICTS).getCount());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.DAY_ARRAY).getCount());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.SCAN).getCount());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.SORT).getCount());
+  }
+
+  @Test
+  public void workingHoursAreTimedWithTheConflicts() {
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    query.setMetrics(metrics);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    query.query(
+        EVENTS,
+        request,
+        TimeRange.WHOLE_DAY,
+        Collections.singletonMap(PERSON_A, new WorkingHours(0, TIME_0900AM, TIME_1100AM)));
+
+    Assert.assertEquals(1, metrics.getQueries());
+    // Only the events are counted, not the time outside of working hours.
+    Assert.assertEquals(1, metrics.getEventsRelevant());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.CONFLICTS).getCount());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.SORT).getCount());
+    Assert.assertEquals(1, metrics.getPhaseNanos(SchedulerMetrics.Phase.SCAN).getCount());
+  }
+
+  @Test
+  public void rankCountsEveryCandidate() {
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    query.setMetrics(metrics);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<TimeRange> best =
+        query.rank(EVENTS, request, TimeRange.WHOLE_DAY, 1, SlotScorers.optionalAttendees(1), 1);
+
+    Assert.assertEquals(1, best.size());
+    Assert.assertEquals(4, metrics.getCandidates());
+  }
+
+  @Test
+  public void mapHasEveryPhase() {
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    query.setMetrics(metrics);
+    query.query(EVENTS, new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+
+    Map<String, Object> map = metrics.toMap();
+
+    Assert.assertEquals(1L, map.get("queries"));
+    Map<?, ?> phases = (Map<?, ?>) map.get("phases");
+    Assert.assertEquals(
+        Arrays.asList("conflicts", "day_array", "sort", "scan"),
+        Arrays.asList(phases.keySet().toArray()));
+  }
+
+  @Test
+  public void metricsSetDuringAQueryDoNotRecordIt() {
+    final FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+    // Sets the metrics once the query has started and is going through the events.
+    Collection<Event> events =
+        new AbstractCollection<Event>() {
+          @Override
+          public Iterator<Event> iterator() {
+            query.setMetrics(metrics);
+            return EVENTS.iterator();
+          }
+
+          @Override
+          public int size() {
+            return EVENTS.size();
+          }
+        };
+
+    query.query(events, new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertEquals(0, metrics.getQueries());
+    Assert.assertEquals(0, metrics.getPhaseNanos(SchedulerMetrics.Phase.CONFLICTS).getCount());
+    // Later phases are timed from when the metrics were set, not from the start of time.
+    long oneMinute = TimeUnit.MINUTES.toNanos(1);
+    Assert.assertTrue(metrics.getPhaseNanos(SchedulerMetrics.Phase.SORT).getMax() < oneMinute);
+    Assert.assertTrue(metrics.getPhaseNanos(SchedulerMetrics.Phase.SCAN).getMax() < oneMinute);
+  }
+}
@@ -0,0 +1,167 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SlotScorersTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+  }
+
+  @Test
+  public void optionalAttendeesRanksLikeQuery() {
+    // Events  :       |--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--------2--------|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<TimeRange> actual =
+        query.rank(
+            events, request, TimeRange.WHOLE_DAY, 1, SlotScorers.optionalAttendees(1), 2);
+
+    Assert.assertEquals(query.query(events, request), actual);
+  }
+
+  @Test
+  public void preferredHoursBreakTies() {
+    // Events  :          |--A--|
+    // Day     : |-----------------------------|
+    //
+    // Both free times work for everyone, but only the afternoon is within the preferred hours.
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1200PM, false),
+                Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    SlotScorer scorer = SlotScorers.preferredHours(TIME_1200PM, TIME_0500PM, 1);
+
+    List<TimeRange> actual = query.rank(events, request, TimeRange.WHOLE_DAY, 1, scorer, 1);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true)), actual);
+  }
+
+  @Test
+  public void fragmentationAvoidsShortGaps() {
+    // Events  :    |--A--|       |--A--|
+    // Day     : |--|     |-------|     |------|
+    //
+    // The first free time leaves 30 minutes after a 60 minute meeting, which is too short.
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_1000AM + 30, TIME_1100AM, false),
+                Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    SlotScorer scorer = SlotScorers.fragmentation(45, 1);
+
+    List<TimeRange> actual = query.rank(events, request, TimeRange.WHOLE_DAY, 1, scorer, 1);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true)), actual);
+  }
+
+  @Test
+  public void timeZoneFairnessPrefersSharedHours() {
+    // Events  :    |--A--|
+    // Day     : |--|     |------------------|
+    //
+    // B is three hours ahead of A. A meeting at midnight is outside of 9am to 5pm for both of
+    // them, while one at 10am is inside for both.
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_A)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    SlotScorer scorer =
+        SlotScorers.timeZoneFairness(new int[] {0, 180}, TIME_0900AM, TIME_0500PM, 1);
+
+    List<TimeRange> actual = query.rank(events, request, TimeRange.WHOLE_DAY, 1, scorer, 1);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true)), actual);
+  }
+
+  @Test
+  public void returnsAtMostKBestFirst() {
+    // Events  :       |--A--|     |--A--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false),
+                Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    SlotScorer scorer = SlotScorers.preferredHours(TIME_1000AM, TIME_1100AM, 1);
+
+    List<TimeRange> actual = query.rank(events, request, TimeRange.WHOLE_DAY, 1, scorer, 2);
+
+    // The preferred time is first, then the earliest of the two that tie.
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false));
+    Assert.assertEquals(expected, actual);
+  }
+}
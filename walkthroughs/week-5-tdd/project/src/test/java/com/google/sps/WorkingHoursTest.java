@@ -0,0 +1,216 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class WorkingHoursTest {
+  private static final String PERSON_NEW_YORK = "Person New York";
+  private static final String PERSON_BERLIN = "Person Berlin";
+  private static final String PERSON_TOKYO = "Person Tokyo";
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int DAY = 24 * 60;
+  private static final int UTC_MINUS_5 = -5 * 60;
+  private static final int UTC_PLUS_1 = 60;
+  private static final int UTC_PLUS_9 = 9 * 60;
+  private static final int UTC_PLUS_10 = 10 * 60;
+
+  private static final int TIME_0700AM = TimeRange.getTimeInMinutes(7, 0);
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+  private static final int TIME_0400PM = TimeRange.getTimeInMinutes(16, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+  private static final int TIME_1000PM = TimeRange.getTimeInMinutes(22, 0);
+  private static final int TIME_1100PM = TimeRange.getTimeInMinutes(23, 0);
+
+  private static final WorkingHours NEW_YORK =
+      new WorkingHours(UTC_MINUS_5, TIME_0900AM, TIME_0500PM);
+  private static final WorkingHours BERLIN = new WorkingHours(UTC_PLUS_1, TIME_0900AM, TIME_0500PM);
+  private static final WorkingHours TOKYO = new WorkingHours(UTC_PLUS_9, TIME_0900AM, TIME_0500PM);
+
+  @Test
+  public void offHoursAreShiftedToUtc() {
+    // New York works from 14:00 to 22:00 UTC.
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(0, TIME_0200PM, false),
+            TimeRange.fromStartEnd(TIME_1000PM, DAY, false)),
+        NEW_YORK.getOffHours(TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void workThatStartsTheDayBeforeInUtc() {
+    // Work starts at 23:00 UTC the day before and ends at 07:00 UTC.
+    WorkingHours hours = new WorkingHours(UTC_PLUS_10, TIME_0900AM, TIME_0500PM);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0700AM, TIME_1100PM, false)),
+        hours.getOffHours(TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void offHoursOverSeveralDays() {
+    TimeRange window = TimeRange.fromStartEnd(TIME_0800AM, 2 * DAY, false);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0200PM, false),
+            TimeRange.fromStartEnd(TIME_1000PM, DAY + TIME_0200PM, false),
+            TimeRange.fromStartEnd(DAY + TIME_1000PM, 2 * DAY, false)),
+        NEW_YORK.getOffHours(window));
+  }
+
+  @Test
+  public void teamAcrossTimeZonesMeetsWhileBothWork() {
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_NEW_YORK, NEW_YORK);
+    workingHours.put(PERSON_BERLIN, BERLIN);
+    workingHours.put(PERSON_TOKYO, TOKYO);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_NEW_YORK, PERSON_BERLIN), 60);
+    // Tokyo never works at the same time as New York, so they are left out.
+    request.addOptionalAttendee(PERSON_TOKYO);
+    TimeRange twoDays = TimeRange.fromStartEnd(0, 2 * DAY, false);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE)
+            .query(Collections.<Event>emptyList(), request, twoDays, workingHours);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0200PM, TIME_0400PM, false),
+            TimeRange.fromStartEnd(DAY + TIME_0200PM, DAY + TIME_0400PM, false)),
+        actual);
+  }
+
+  @Test
+  public void eventOutsideOfWorkingHoursIsNotCountedTwice() {
+    // Person B works from 09:00 to 17:00 UTC and is in a meeting from 09:00 to the end of the day,
+    // so they can make no time at all, and the whole day is as good as any other.
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_B, new WorkingHours(0, TIME_0900AM, TIME_0500PM));
+    List<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, DAY, false),
+                Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 60);
+    request.addOptionalAttendee(PERSON_B);
+    CalendarIndex calendar = new CalendarIndex(events);
+    calendar.setWorkingHours(PERSON_B, workingHours.get(PERSON_B));
+
+    List<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+    Assert.assertEquals(
+        expected,
+        new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE)
+            .query(events, request, TimeRange.WHOLE_DAY, workingHours));
+    Assert.assertEquals(
+        expected,
+        new FindMeetingQuery(
+                FindMeetingQuery.Engine.PARALLEL_SWEEP_LINE,
+                new AttendeeDictionary(),
+                ForkJoinPool.commonPool(),
+                1)
+            .query(events, request, TimeRange.WHOLE_DAY, workingHours));
+    Assert.assertEquals(
+        expected,
+        new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE).query(calendar, request));
+  }
+
+  @Test
+  public void offHoursAroundAnEventStillCount() {
+    // Person B works from 09:00 to 17:00 UTC and has an event from 07:00 to 10:00, so the hours
+    // before 09:00 are only counted once and 10:00 to 17:00 is the only time Person B can make.
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_B, new WorkingHours(0, TIME_0900AM, TIME_0500PM));
+    List<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0700AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 60);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE)
+            .query(events, request, TimeRange.WHOLE_DAY, workingHours);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1000AM, TIME_0500PM, false)), actual);
+  }
+
+  @Test
+  public void calendarIndexCountsOffHoursAsBusy() {
+    CalendarIndex calendar =
+        new CalendarIndex(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TIME_0200PM, TIME_0200PM + 30, false),
+                    Arrays.asList(PERSON_BERLIN))));
+    final List<String> changed = new ArrayList<>();
+    calendar.addListener(
+        new CalendarIndex.Listener() {
+          @Override
+          public void attendeesChanged(Collection<String> attendees) {
+            changed.addAll(attendees);
+          }
+        });
+    calendar.setWorkingHours(PERSON_NEW_YORK, NEW_YORK);
+    calendar.setWorkingHours(PERSON_BERLIN, BERLIN);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_NEW_YORK, PERSON_BERLIN), 60);
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP_LINE);
+
+    // The whole day is answered from the busy-minute bitmaps, and a window by the sweep.
+    Collection<TimeRange> day = query.query(calendar, request);
+    Collection<TimeRange> window =
+        query.query(calendar, request, TimeRange.fromStartEnd(0, DAY, false), 1, 10);
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0200PM + 30, TIME_0400PM, false));
+    Assert.assertEquals(expected, day);
+    Assert.assertEquals(expected, window);
+    Assert.assertEquals(Arrays.asList(PERSON_NEW_YORK, PERSON_BERLIN), changed);
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(0, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0200PM, TIME_0200PM + 30, false),
+            TimeRange.fromStartEnd(TIME_0400PM, DAY, false)),
+        calendar.getBusyTimes(PERSON_BERLIN, TimeRange.WHOLE_DAY));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void hoursMustBeWithinOneDay() {
+    new WorkingHours(0, TIME_0500PM, TIME_0900AM);
+  }
+}